@@ -0,0 +1,61 @@
+package tpdia_project;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+
+// training and prediction of the algorithms on the same split of the features table as the [s] key
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = { "-Xmx4g", "-Dfile.encoding=UTF-8", "--add-modules=jdk.incubator.vector" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ClassifierBenchmark {
+	@Param({ "KStar", "KNN", "RandomForest", "SVM" })
+	public String algorithm;
+
+	private Instances train;
+	private Instances test;
+	private Classifier model;
+
+	@Setup(Level.Trial)
+	public void Setup() throws Exception {
+		Instances[] trainAndTest = MainProgram.GetTrainAndTestDataSets();
+
+		train = MLAlgorithms.PrepareDataSet(algorithm, trainAndTest[0]);
+		test = MLAlgorithms.PrepareDataSet(algorithm, trainAndTest[1]);
+
+		model = MLAlgorithms.CreateClassifier(algorithm);
+		model.buildClassifier(train);
+	}
+
+	@Benchmark
+	public Classifier Train() throws Exception {
+		Classifier classifier = MLAlgorithms.CreateClassifier(algorithm);
+		classifier.buildClassifier(train);
+		return classifier;
+	}
+
+	@Benchmark
+	public void Predict(Blackhole blackhole) throws Exception {
+		for (int i = 0; i < test.numInstances(); i++) {
+			blackhole.consume(model.classifyInstance(test.instance(i)));
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package tpdia_project;
+
+import org.openjdk.jmh.annotations.Param;
+
+// table benchmarks over the largest files of datasets/: text with values and ranges in one cell,
+// coordinates with empty cells and a wide numeric table, paths are relative to the datasets root
+public class DatasetFileBenchmark extends TableBenchmark {
+	@Param({ "KG/infantMortalityRate.csv", "US/Curb_Ramps_on_NYS-Owned_Highways.csv", "KG/UCI_Credit_Card.csv" })
+	public String file;
+
+	@Override
+	protected String GetTableFile() {
+		return MainProgram.datasetsRoot + "/" + file;
+	}
+}
@@ -0,0 +1,139 @@
+package tpdia_project;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import tpdia_project.Models.ExtractionSettingsModel;
+import weka.core.Instances;
+
+// every feature method of FeatureExtractionManager on all columns of a preprocessed synthetic table
+// each operation uses a new manager, so the columns are decoded again: ColumnProfile is the cost of decoding alone,
+// the general and statistical features add their own work to it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = { "-Xmx4g", "-Dfile.encoding=UTF-8", "--add-modules=jdk.incubator.vector" })
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FeatureMethodsBenchmark {
+	@Param({ "1000", "10000", "100000" })
+	public int rows;
+
+	@Param({ "4", "16", "64" })
+	public int columns;
+
+	@Param({ "low", "high" })
+	public String cardinality;
+
+	private final ExtractionSettingsModel settings = new ExtractionSettingsModel();
+
+	private Path tablePath;
+	private Instances dataset;
+
+	private interface ColumnFeature {
+		Object Get(FeatureExtractionManager extractionManager, int columnNr);
+	}
+
+	@Setup(Level.Trial)
+	public void Setup() throws IOException {
+		tablePath = SyntheticTables.Write(rows, columns, cardinality);
+		dataset = new CSVManager().GetDataSet(tablePath.toString());
+
+		if (dataset == null) {
+			throw new IllegalStateException("Weka could not read " + tablePath);
+		}
+
+		MainProgram.Preprocess(dataset, new FeatureExtractionManager(settings).GetColumnCache(dataset));
+	}
+
+	@TearDown(Level.Trial)
+	public void TearDown() throws IOException {
+		Files.deleteIfExists(tablePath);
+	}
+
+	@Benchmark
+	public void ColumnProfile(Blackhole blackhole) {
+		forEachColumn(blackhole, (m, c) -> m.GetColumnProfile(dataset, c));
+	}
+
+	// 1 - General Features ///////////////////////////////////////
+
+	@Benchmark
+	public void DataType(Blackhole blackhole) {
+		forEachColumn(blackhole, (m, c) -> m.GetDataType(dataset, c));
+	}
+
+	@Benchmark
+	public void PositiveNegativeZeroValueRatio(Blackhole blackhole) {
+		forEachColumn(blackhole, (m, c) -> m.GetPositiveNegativeZeroValueRatio(dataset, c));
+	}
+
+	@Benchmark
+	public void UniqueValueRatio(Blackhole blackhole) {
+		forEachColumn(blackhole, (m, c) -> m.GetUniqueValueRatio(dataset, c));
+	}
+
+	@Benchmark
+	public void SameDigitalNumber(Blackhole blackhole) {
+		forEachColumn(blackhole, (m, c) -> m.GetSameDigitalNumber(dataset, c));
+	}
+
+	// 2 - Statistical Features ///////////////////////////////////////
+
+	@Benchmark
+	public void AvgMinMaxMedianUpquarLowquar(Blackhole blackhole) {
+		forEachColumn(blackhole, (m, c) -> m.GetAvgMinMaxMedianUpquarLowquar(dataset, c));
+	}
+
+	@Benchmark
+	public void CoefficientOfVariation(Blackhole blackhole) {
+		forEachColumn(blackhole, (m, c) -> m.GetCoefficientOfVariation(dataset, c));
+	}
+
+	@Benchmark
+	public void RangeRatio(Blackhole blackhole) {
+		forEachColumn(blackhole, (m, c) -> m.GetRangeRatio(dataset, c));
+	}
+
+	// 3 - Inter-Column Features ///////////////////////////////////////
+
+	@Benchmark
+	public void LocationRatio(Blackhole blackhole) {
+		forEachColumn(blackhole, (m, c) -> m.GetLocationRatio(dataset.numAttributes(), c));
+	}
+
+	@Benchmark
+	public void NumericalColumnRatio(Blackhole blackhole) {
+		forEachColumn(blackhole, (m, c) -> m.GetNumericalColumnRatio(dataset));
+	}
+
+	@Benchmark
+	public void NumericalNeighbor(Blackhole blackhole) {
+		forEachColumn(blackhole, (m, c) -> m.GetNumericalNeighbor(dataset, c));
+	}
+
+	private void forEachColumn(Blackhole blackhole, ColumnFeature feature) {
+		FeatureExtractionManager extractionManager = new FeatureExtractionManager(settings);
+
+		for (int columnNr = 0; columnNr < dataset.numAttributes(); columnNr++) {
+			blackhole.consume(feature.Get(extractionManager, columnNr));
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package tpdia_project;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tpdia_project.Models.ExtractionSettingsModel;
+import tpdia_project.Models.TableScoresModel;
+import weka.core.Instances;
+
+// training of the measure detection model on the features table and scoring of new synthetic tables
+// the states are separate, so training does not run once for every table of the scoring
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = { "-Xmx4g", "-Dfile.encoding=UTF-8", "--add-modules=jdk.incubator.vector" })
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MeasureDetectorBenchmark {
+	// models are kept in a temporary directory, never in the models directory of the program
+	@State(Scope.Benchmark)
+	public static class Detector {
+		final ExtractionSettingsModel settings = new ExtractionSettingsModel();
+
+		Path modelsDirectory;
+		Instances featuresTable;
+		MeasureDetector measureDetector;
+
+		@Setup(Level.Trial)
+		public void Setup() throws Exception {
+			modelsDirectory = Files.createTempDirectory("models");
+			featuresTable = MainProgram.featureStore.Load();
+			measureDetector = new MeasureDetector(featuresTable, new ModelRegistry(modelsDirectory.toString(), false),
+					settings);
+		}
+
+		@TearDown(Level.Trial)
+		public void TearDown() throws IOException {
+			try (Stream<Path> paths = Files.walk(modelsDirectory)) {
+				for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Table {
+		@Param({ "1000", "10000", "100000" })
+		public int rows;
+
+		@Param({ "16" })
+		public int columns;
+
+		@Param({ "low", "high" })
+		public String cardinality;
+
+		Path tablePath;
+
+		@Setup(Level.Trial)
+		public void Setup() throws IOException {
+			tablePath = SyntheticTables.Write(rows, columns, cardinality);
+		}
+
+		@TearDown(Level.Trial)
+		public void TearDown() throws IOException {
+			Files.deleteIfExists(tablePath);
+		}
+	}
+
+	// the registry trains the model again on every operation
+	@Benchmark
+	public MeasureDetector Train(Detector detector) throws Exception {
+		return new MeasureDetector(detector.featuresTable,
+				new ModelRegistry(detector.modelsDirectory.toString(), true), detector.settings);
+	}
+
+	@Benchmark
+	public TableScoresModel ScoreTable(Detector detector, Table table) throws Exception {
+		return detector.measureDetector.ScoreTable(table.tablePath.toString());
+	}
+}
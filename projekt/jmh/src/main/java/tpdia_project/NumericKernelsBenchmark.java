@@ -0,0 +1,75 @@
+package tpdia_project;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tpdia_project.Models.NumberClassesModel;
+
+// number classes of one column with the vector kernel and with the scalar loop, -p kernel=scalar or vector
+// the column mixes integers, reals, zeros, negative and missing values
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = { "-Xmx4g", "-Dfile.encoding=UTF-8", "--add-modules=jdk.incubator.vector" })
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NumericKernelsBenchmark {
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int rows;
+
+	@Param({ "vector", "scalar" })
+	public String kernel;
+
+	private double[] column;
+
+	@Setup(Level.Trial)
+	public void Setup() {
+		// the kernel is chosen once per JVM, every fork runs one kernel
+		System.setProperty("vectorkernels", Boolean.toString(kernel.equals("vector")));
+
+		if (kernel.equals("vector") && !NumericKernels.IsVectorized()) {
+			throw new IllegalStateException("The vector kernel is not available, run with --add-modules jdk.incubator.vector");
+		}
+
+		Random random = new Random(rows);
+		column = new double[rows];
+
+		for (int row = 0; row < rows; row++) {
+			switch (random.nextInt(5)) {
+			case 0:
+				column[row] = random.nextInt(1000) - 500;
+				break;
+			case 1:
+				column[row] = (random.nextDouble() - 0.5) * 1000;
+				break;
+			case 2:
+				column[row] = 0;
+				break;
+			case 3:
+				column[row] = Double.NaN;
+				break;
+			default:
+				column[row] = random.nextInt(100);
+				break;
+			}
+		}
+	}
+
+	@Benchmark
+	public NumberClassesModel CountClasses() {
+		return NumericKernels.CountClasses(column, 0, rows);
+	}
+}
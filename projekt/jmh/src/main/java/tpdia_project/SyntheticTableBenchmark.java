@@ -0,0 +1,35 @@
+package tpdia_project;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+
+// table benchmarks over synthetic tables of different numbers of rows, columns and distinct values
+// a smaller matrix is chosen on the command line, e.g. -p rows=10000 -p columns=16
+public class SyntheticTableBenchmark extends TableBenchmark {
+	@Param({ "1000", "10000", "100000" })
+	public int rows;
+
+	@Param({ "4", "16", "64" })
+	public int columns;
+
+	@Param({ "low", "high" })
+	public String cardinality;
+
+	private Path tablePath;
+
+	@Override
+	protected String GetTableFile() throws IOException {
+		tablePath = SyntheticTables.Write(rows, columns, cardinality);
+		return tablePath.toString();
+	}
+
+	@TearDown(Level.Trial)
+	public void TearDown() throws IOException {
+		Files.deleteIfExists(tablePath);
+	}
+}
@@ -0,0 +1,79 @@
+package tpdia_project;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// seeded CSV tables of the benchmarks, the same parameters always give the same file
+// columns repeat six kinds: identifiers, counts, prices, signed numbers, text labels and numbers with a unit
+public class SyntheticTables {
+	// low cardinality columns have this many distinct values, high cardinality columns as many as rows
+	public static final int LOW_DISTINCT_NUMBER = 16;
+
+	public static Path Write(int rowsNumber, int columnsNumber, String cardinality) throws IOException {
+		int distinctNumber = GetDistinctNumber(rowsNumber, cardinality);
+		Path tablePath = Files.createTempFile("table-" + rowsNumber + "-" + columnsNumber + "-" + cardinality, ".csv");
+		Random random = new Random(rowsNumber * 31L + columnsNumber * 17L + distinctNumber);
+
+		try (BufferedWriter writer = Files.newBufferedWriter(tablePath, StandardCharsets.UTF_8)) {
+			for (int columnNr = 0; columnNr < columnsNumber; columnNr++) {
+				writer.write((columnNr > 0 ? "," : "") + "column" + columnNr);
+			}
+
+			writer.write("\n");
+
+			StringBuilder line = new StringBuilder();
+
+			for (int row = 0; row < rowsNumber; row++) {
+				line.setLength(0);
+
+				for (int columnNr = 0; columnNr < columnsNumber; columnNr++) {
+					int value = random.nextInt(distinctNumber);
+
+					if (columnNr > 0) {
+						line.append(',');
+					}
+
+					switch (columnNr % 6) {
+					case 0:
+						line.append(row);
+						break;
+					case 1:
+						line.append(value);
+						break;
+					case 2:
+						line.append(value).append('.').append(value % 100 < 10 ? "0" : "").append(value % 100);
+						break;
+					case 3:
+						line.append(value - distinctNumber / 2).append(".5");
+						break;
+					case 4:
+						line.append("label").append(value);
+						break;
+					default:
+						line.append(value).append("kg");
+						break;
+					}
+				}
+
+				writer.write(line.append('\n').toString());
+			}
+		}
+
+		return tablePath;
+	}
+
+	public static int GetDistinctNumber(int rowsNumber, String cardinality) {
+		switch (cardinality) {
+		case "low":
+			return LOW_DISTINCT_NUMBER;
+		case "high":
+			return rowsNumber;
+		default:
+			throw new IllegalArgumentException("Unknown cardinality: " + cardinality + ", expected low or high");
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package tpdia_project;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import tpdia_project.Models.ExtractionSettingsModel;
+import weka.core.Instances;
+
+// loading, preprocessing and Features of all columns of one CSV file
+// subclasses choose the file: a synthetic table or a file of datasets/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = { "-Xmx4g", "-Dfile.encoding=UTF-8", "--add-modules=jdk.incubator.vector" })
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public abstract class TableBenchmark {
+	protected final CSVManager csvManager = new CSVManager();
+	protected final ExtractionSettingsModel settings = new ExtractionSettingsModel();
+
+	protected String fileName;
+
+	// the dataset as weka reads it, and the same dataset after preprocessing
+	protected Instances loaded;
+	protected Instances dataset;
+
+	protected abstract String GetTableFile() throws IOException;
+
+	@Setup(Level.Trial)
+	public void Setup() throws IOException {
+		fileName = GetTableFile();
+		loaded = csvManager.GetDataSet(fileName);
+
+		if (loaded == null) {
+			throw new IllegalStateException("Weka could not read " + fileName);
+		}
+
+		dataset = new Instances(loaded);
+		MainProgram.Preprocess(dataset, new FeatureExtractionManager(settings).GetColumnCache(dataset));
+	}
+
+	@Benchmark
+	public Instances LoadWeka() {
+		return csvManager.GetDataSet(fileName);
+	}
+
+	@Benchmark
+	public Object LoadStreamed() {
+		return csvManager.GetColumnProfiles(fileName, ",", settings);
+	}
+
+	// preprocessing changes the dataset, so every operation works on a copy
+	@Benchmark
+	public Instances Preprocess() {
+		Instances copy = new Instances(loaded);
+		MainProgram.Preprocess(copy, new FeatureExtractionManager(settings).GetColumnCache(copy));
+		return copy;
+	}
+
+	@Benchmark
+	public Instances PreprocessCopyOnly() {
+		return new Instances(loaded);
+	}
+
+	// Features of all columns as computed for the features table, a new manager decodes the columns again
+	@Benchmark
+	public void FeaturesFromInstances(Blackhole blackhole) {
+		FeatureExtractionManager extractionManager = new FeatureExtractionManager(settings);
+		ColumnTypeIndex typeIndex = extractionManager.GetColumnTypeIndex(dataset);
+
+		for (int columnNr = 0; columnNr < dataset.numAttributes(); columnNr++) {
+			blackhole.consume(new Features(dataset, extractionManager, typeIndex, dataset.attribute(columnNr).name(),
+					columnNr));
+		}
+	}
+
+	@Benchmark
+	public Features[] FeaturesFromStreamedProfiles() {
+		FeatureExtractionManager extractionManager = new FeatureExtractionManager(settings);
+		return extractionManager.GetFeatures(csvManager.GetColumnProfiles(fileName, ",", settings));
+	}
+}
@@ -0,0 +1,53 @@
+package tpdia_project;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD version of the number classes of NumericKernels, compiled only with the jdk.incubator.vector module
+// every lane follows the scalar checks, so both paths give the same counts
+public class VectorKernels implements NumericKernels.VectorKernel {
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	// doubles from 2^52 have no fraction, smaller ones are rounded to an integer by adding and subtracting 2^52
+	private static final double NO_FRACTION_LIMIT = 0x1p52;
+
+	@Override
+	public int CountClasses(double[] values, int fromRow, int toRow, int[] counts) {
+		int missing = 0;
+		int integers = 0;
+		int zeros = 0;
+		int positives = 0;
+
+		int vectorsEnd = fromRow + SPECIES.loopBound(toRow - fromRow);
+		int row = fromRow;
+
+		for (; row < vectorsEnd; row += SPECIES.length()) {
+			DoubleVector value = DoubleVector.fromArray(SPECIES, values, row);
+			DoubleVector absolute = value.abs();
+
+			// NaN fails every comparison, so it is only missing
+			VectorMask<Double> missingMask = value.eq(value).not();
+			VectorMask<Double> zero = absolute.lt(NumericKernels.ZERO_LIMIT);
+			VectorMask<Double> small = absolute.lt(NO_FRACTION_LIMIT);
+			VectorMask<Double> large = absolute.lt(Double.POSITIVE_INFINITY).andNot(small);
+			VectorMask<Double> rounded = absolute.add(NO_FRACTION_LIMIT).sub(NO_FRACTION_LIMIT).eq(absolute);
+
+			// x - floor(x) is exact, it is below the limit for integers and for Double.MIN_VALUE itself
+			VectorMask<Double> integer = small.and(rounded).or(large).or(value.eq(Double.MIN_VALUE));
+
+			missing += missingMask.trueCount();
+			integers += integer.trueCount();
+			zeros += zero.trueCount();
+			positives += value.compare(VectorOperators.GT, 0).andNot(zero).trueCount();
+		}
+
+		counts[0] += missing;
+		counts[1] += integers;
+		counts[2] += zeros;
+		counts[3] += positives;
+
+		return row;
+	}
+}
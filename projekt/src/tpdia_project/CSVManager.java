@@ -5,16 +5,38 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import tpdia_project.Models.DatasetInformationModel;
+import tpdia_project.Models.ExtractionSettingsModel;
+import tpdia_project.Models.FileFingerprintModel;
+import tpdia_project.Models.StreamedDatasetModel;
 import weka.core.Instances;
 import weka.core.converters.CSVLoader;
 import weka.core.Attribute;
 
 // class for CSV operations
 public class CSVManager {
+	// messages about files that could not be read
+	private final PrintStream log;
+
+	public CSVManager() {
+		this(System.out);
+	}
+
+	public CSVManager(PrintStream log) {
+		this.log = log;
+	}
+
 	public Instances GetDataSet(String fileName) {
 		return this.GetDataSet(fileName, ",");
 	}
@@ -28,16 +50,198 @@ public class CSVManager {
 			loader.setFile(new File(fileName));
 			dataSet = loader.getDataSet();
 		} catch (IOException e) {
-			System.out.println(e.getMessage());
+			log.println(e.getMessage());
 			return null;
 		} catch (Exception e) {
-			System.out.println(e.getMessage());
+			log.println(e.getMessage());
 			return null;
 		}
 
 		return dataSet;
 	}
 
+	// reads the file once without building Instances, every column is profiled while it is streamed
+	// files up to 2 GB are memory-mapped and their cells are decoded only when a feature needs them
+	public StreamedDatasetModel GetColumnProfiles(String fileName, String fieldSeparator,
+			ExtractionSettingsModel settings) {
+
+		try {
+			if (Files.size(Paths.get(fileName)) <= Integer.MAX_VALUE) {
+				return getMappedColumnProfiles(fileName, fieldSeparator, settings);
+			}
+
+			return getStreamedColumnProfiles(fileName, fieldSeparator, settings);
+		} catch (IOException e) {
+			log.println(e.getMessage());
+			return null;
+		}
+	}
+
+	private StreamedDatasetModel getMappedColumnProfiles(String fileName, String fieldSeparator,
+			ExtractionSettingsModel settings) throws IOException {
+
+		try (MappedCSVReader reader = new MappedCSVReader(fileName, fieldSeparator)) {
+			ColumnAccumulator[] accumulators = createAccumulators(reader.GetColumnNames().size(), settings);
+
+			if (!RowSampler.IsEnabled(settings)) {
+				while (reader.ReadRow()) {
+					for (int i = 0; i < accumulators.length; i++) {
+						accumulators[i].Add(reader, i);
+					}
+				}
+
+				return getStreamedDataset(reader.GetColumnNames(), reader.GetRowsNumber(), reader.GetRowsNumber(),
+						accumulators);
+			}
+
+			// only the offsets of sampled rows are kept, their cells are read again when the sample is complete
+			RowSampler sampler = new RowSampler(settings);
+			int[] rowOffsets = new int[16];
+
+			while (reader.ReadRow()) {
+				int slot = sampler.Offer();
+
+				if (slot >= 0) {
+					if (slot == rowOffsets.length) {
+						rowOffsets = Arrays.copyOf(rowOffsets, slot << 1);
+					}
+
+					rowOffsets[slot] = reader.GetRowOffset();
+				}
+			}
+
+			for (int slot : sampler.GetSlotsInRowOrder()) {
+				reader.ReadRowAt(rowOffsets[slot]);
+
+				for (int i = 0; i < accumulators.length; i++) {
+					accumulators[i].Add(reader, i);
+				}
+			}
+
+			return getStreamedDataset(reader.GetColumnNames(), reader.GetRowsNumber(), sampler.GetSize(),
+					accumulators);
+		}
+	}
+
+	private StreamedDatasetModel getStreamedColumnProfiles(String fileName, String fieldSeparator,
+			ExtractionSettingsModel settings) throws IOException {
+
+		try (StreamingCSVReader reader = new StreamingCSVReader(fileName, fieldSeparator)) {
+			ColumnAccumulator[] accumulators = createAccumulators(reader.GetColumnNames().size(), settings);
+
+			RowSampler sampler = RowSampler.IsEnabled(settings) ? new RowSampler(settings) : null;
+			List<List<String>> sampledRows = new ArrayList<List<String>>();
+
+			List<String> cells = new ArrayList<String>(accumulators.length);
+			while (reader.ReadRow(cells)) {
+				if (sampler == null) {
+					for (int i = 0; i < accumulators.length; i++) {
+						accumulators[i].Add(cells.get(i));
+					}
+
+					continue;
+				}
+
+				int slot = sampler.Offer();
+
+				if (slot == sampledRows.size()) {
+					sampledRows.add(new ArrayList<String>(cells));
+				} else if (slot >= 0) {
+					sampledRows.set(slot, new ArrayList<String>(cells));
+				}
+			}
+
+			if (sampler == null) {
+				return getStreamedDataset(reader.GetColumnNames(), reader.GetRowsNumber(), reader.GetRowsNumber(),
+						accumulators);
+			}
+
+			for (int slot : sampler.GetSlotsInRowOrder()) {
+				List<String> sampledCells = sampledRows.get(slot);
+
+				for (int i = 0; i < accumulators.length; i++) {
+					accumulators[i].Add(sampledCells.get(i));
+				}
+			}
+
+			return getStreamedDataset(reader.GetColumnNames(), reader.GetRowsNumber(), sampler.GetSize(),
+					accumulators);
+		}
+	}
+
+	private static ColumnAccumulator[] createAccumulators(int columnsNumber, ExtractionSettingsModel settings) {
+		ColumnAccumulator[] accumulators = new ColumnAccumulator[columnsNumber];
+
+		for (int i = 0; i < columnsNumber; i++) {
+			accumulators[i] = new ColumnAccumulator(settings);
+		}
+
+		return accumulators;
+	}
+
+	private static StreamedDatasetModel getStreamedDataset(List<String> columnNames, int rowsNumber,
+			int sampleRowsNumber, ColumnAccumulator[] accumulators) {
+
+		StreamedDatasetModel streamedDataset = new StreamedDatasetModel();
+		streamedDataset.ColumnNames = columnNames;
+		streamedDataset.RowsNumber = rowsNumber;
+		streamedDataset.SampleRowsNumber = sampleRowsNumber;
+		streamedDataset.Profiles = new ColumnProfile[accumulators.length];
+
+		for (int i = 0; i < accumulators.length; i++) {
+			streamedDataset.Profiles[i] = accumulators[i].Finish();
+		}
+
+		return streamedDataset;
+	}
+
+	// size and modification time are cheap, the hash requires reading the whole file
+	public FileFingerprintModel GetFileFingerprint(String fileName, boolean withHash) throws IOException {
+		Path path = Paths.get(fileName);
+
+		FileFingerprintModel fingerprint = new FileFingerprintModel();
+		fingerprint.Size = Files.size(path);
+		fingerprint.ModifiedTime = Files.getLastModifiedTime(path).toMillis();
+
+		if (withHash) {
+			fingerprint.Hash = GetFileHash(fileName);
+		}
+
+		return fingerprint;
+	}
+
+	public String GetFileHash(String fileName) throws IOException {
+		MessageDigest digest;
+
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+
+		byte[] buffer = new byte[1 << 16];
+
+		try (InputStream in = Files.newInputStream(Paths.get(fileName))) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+
+		return GetHexString(digest.digest());
+	}
+
+	public static String GetHexString(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+
+		return hex.toString();
+	}
+
 	public ArrayList<DatasetInformationModel> GetDatasetsInfoFromDomain(String domainName) {
 
 		ArrayList<DatasetInformationModel> datasetInformationList = new ArrayList<DatasetInformationModel>();
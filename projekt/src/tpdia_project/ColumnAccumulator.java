@@ -0,0 +1,200 @@
+package tpdia_project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import tpdia_project.Models.ExtractionSettingsModel;
+
+// streamed column, its type is inferred the same way as in weka's CSVLoader
+// numbers go straight to the column profile, nominal rows are kept as label indexes
+// until the units of the whole dictionary are known
+public class ColumnAccumulator {
+	private static final int UNDETERMINED = 0;
+	private static final int NUMERIC = 1;
+	private static final int NOMINAL = 2;
+	private static final int STRING = 3;
+
+	private final ExtractionSettingsModel settings;
+	private int type = UNDETERMINED;
+	private ColumnProfile profile;
+
+	// cells are parsed as by CSVLoader, so locale numbers are never accepted here
+	private final NumberParser numberParser = new NumberParser(false);
+
+	// dictionary of nominal labels, indexes in the order of appearance
+	private final Map<String, Integer> labelIndexes = new HashMap<String, Integer>();
+	private final List<String> labels = new ArrayList<String>();
+
+	// labels of a mapped file by their bytes
+	private final SliceDictionary sliceLabels = new SliceDictionary();
+
+	// label index of every row of a nominal column, -1 for missing values
+	private int[] labelRows = new int[16];
+	private int rowsNumber;
+	private int missingNumber;
+
+	public ColumnAccumulator(ExtractionSettingsModel settings) {
+		this.settings = settings;
+		this.profile = new ColumnProfile(settings);
+	}
+
+	// cell is null for missing values
+	public void Add(String cell) {
+		if (type == STRING) {
+			return;
+		}
+
+		if (cell == null) {
+			addMissing();
+			return;
+		}
+
+		if (type == NOMINAL) {
+			addLabelRow(getLabelIndex(cell));
+			return;
+		}
+
+		if (!numberParser.Parse(cell)) {
+			if (switchToText()) {
+				addLabelRow(getLabelIndex(cell));
+			}
+
+			return;
+		}
+
+		addNumber(numberParser.GetValue());
+	}
+
+	// cell of the current row of a mapped file, it is decoded only when it is needed
+	public void Add(MappedCSVReader reader, int column) {
+		if (type == STRING) {
+			return;
+		}
+
+		if (reader.IsMissing(column)) {
+			addMissing();
+			return;
+		}
+
+		if (type == NOMINAL) {
+			addLabel(reader, column);
+			return;
+		}
+
+		if (!reader.ParseNumber(column, numberParser)) {
+			if (switchToText()) {
+				addLabel(reader, column);
+			}
+
+			return;
+		}
+
+		addNumber(numberParser.GetValue());
+	}
+
+	// missing values before the first value are added when the type is known
+	private void addMissing() {
+		missingNumber++;
+
+		if (type == NOMINAL) {
+			addLabelRow(-1);
+		} else if (type == NUMERIC) {
+			profile.AddMissing();
+		}
+	}
+
+	private void addNumber(double value) {
+		if (type == UNDETERMINED) {
+			type = NUMERIC;
+
+			for (int row = 0; row < missingNumber; row++) {
+				profile.AddMissing();
+			}
+		}
+
+		profile.AddNumber(value);
+	}
+
+	// first value decides, a text after numbers makes a string column
+	// returns true when the column became nominal and the text is its first label
+	private boolean switchToText() {
+		if (type == UNDETERMINED) {
+			type = NOMINAL;
+
+			for (int row = 0; row < missingNumber; row++) {
+				addLabelRow(-1);
+			}
+
+			return true;
+		}
+
+		type = STRING;
+		profile = new ColumnProfile(settings);
+		return false;
+	}
+
+	// bytes of a label seen before are found without decoding them
+	private void addLabel(MappedCSVReader reader, int column) {
+		if (reader.IsEscaped(column)) {
+			addLabelRow(getLabelIndex(reader.GetString(column)));
+			return;
+		}
+
+		int offset = reader.GetCellOffset(column);
+		int length = reader.GetCellLength(column);
+		int hash = reader.GetCellHash(column);
+		int labelIndex = sliceLabels.Get(reader.GetBytes(), offset, length, hash);
+
+		// different bytes can still decode to the same label, the label keeps one index
+		if (labelIndex < 0) {
+			labelIndex = getLabelIndex(reader.GetString(column));
+			sliceLabels.Put(offset, length, hash, labelIndex);
+		}
+
+		addLabelRow(labelIndex);
+	}
+
+	private int getLabelIndex(String label) {
+		Integer labelIndex = labelIndexes.get(label);
+
+		if (labelIndex == null) {
+			labelIndex = labels.size();
+			labelIndexes.put(label, labelIndex);
+			labels.add(label);
+		}
+
+		return labelIndex;
+	}
+
+	private void addLabelRow(int labelIndex) {
+		if (rowsNumber == labelRows.length) {
+			labelRows = Arrays.copyOf(labelRows, rowsNumber << 1);
+		}
+
+		labelRows[rowsNumber++] = labelIndex;
+	}
+
+	// columns without any value are string columns, as in CSVLoader
+	public ColumnProfile Finish() {
+		if (type == NOMINAL) {
+			List<String> columnLabels = labels;
+
+			// units are removed from the dictionary the same way as in preprocessing of Instances
+			if (missingNumber == 0) {
+				List<String> numbers = new UnitNormalizer().StripUnit(labels);
+
+				if (numbers != null) {
+					columnLabels = numbers;
+				}
+			}
+
+			profile.AddLabelRows(labelRows, 0, rowsNumber, columnLabels);
+		}
+
+		profile.Finish(type == NUMERIC, type == NOMINAL);
+		return profile;
+	}
+}
@@ -0,0 +1,50 @@
+package tpdia_project;
+
+import java.util.concurrent.RecursiveTask;
+
+import tpdia_project.Models.ExtractionSettingsModel;
+import weka.core.Attribute;
+
+// profile of a row range of a dataset column, long ranges are split and profiled concurrently
+// ranges are split at multiples of ColumnChunkRows, so the result does not depend on the number of threads
+public class ColumnChunkTask extends RecursiveTask<ColumnProfile> {
+	private static final long serialVersionUID = 1L;
+
+	private final Attribute attribute;
+	private final double[] column;
+	private final int fromRow;
+	private final int toRow;
+	private final ExtractionSettingsModel settings;
+
+	public ColumnChunkTask(Attribute attribute, double[] column, int fromRow, int toRow,
+			ExtractionSettingsModel settings) {
+		this.attribute = attribute;
+		this.column = column;
+		this.fromRow = fromRow;
+		this.toRow = toRow;
+		this.settings = settings;
+	}
+
+	@Override
+	protected ColumnProfile compute() {
+		int chunkRows = Math.max(1, settings.ColumnChunkRows);
+		int chunksNumber = (int) (((long) toRow - fromRow + chunkRows - 1) / chunkRows);
+
+		if (chunksNumber <= 1) {
+			ColumnProfile profile = new ColumnProfile(settings);
+			profile.AddRows(attribute, column, fromRow, toRow);
+			return profile;
+		}
+
+		int middleRow = fromRow + (chunksNumber / 2) * chunkRows;
+
+		ColumnChunkTask firstRows = new ColumnChunkTask(attribute, column, fromRow, middleRow, settings);
+		ColumnChunkTask lastRows = new ColumnChunkTask(attribute, column, middleRow, toRow, settings);
+
+		lastRows.fork();
+		ColumnProfile profile = firstRows.compute();
+		profile.Merge(lastRows.join());
+
+		return profile;
+	}
+}
@@ -0,0 +1,815 @@
+package tpdia_project;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import tpdia_project.Models.ExtractionSettingsModel;
+import tpdia_project.Models.NumberClassesModel;
+import tpdia_project.Models.SampleErrorModel;
+import tpdia_project.Models.StatisticValuesModel;
+import tpdia_project.Models.ValueRatioModel;
+import weka.core.Attribute;
+import weka.core.Instances;
+
+// column accumulated in a single pass, all general and statistical features are computed from it
+// rows are added one by one, either from a dataset column or while a CSV file is streamed
+public class ColumnProfile {
+	// normal quantile of the 95% confidence level of sampled features
+	private static final double SAMPLE_CONFIDENCE_Z = 1.96;
+
+	private final ExtractionSettingsModel settings;
+	private boolean numeric;
+	private boolean nominal;
+	private int rowsNumber;
+
+	// numbers of the column, numeric columns keep missing values as NaN, the same as the per-feature methods did
+	// null when the quantile sketch took over a large column
+	private DoubleArray values = new DoubleArray();
+	private final DistinctCounter distinctValues;
+	private final MomentsAccumulator moments = new MomentsAccumulator();
+
+	// approximate quantiles, only when they are enabled in the settings
+	private final QuantileSketch quantileSketch;
+
+	// missing rows are counted separately, their meaning depends on the column type
+	private int missingNumber;
+
+	// counts collected in the single pass
+	private int intNumbers;
+	private int realNumbers;
+	private int notNumber;
+	private int positiveValue;
+	private int negativeValue;
+	private int zeroValue;
+	private int uniqueNumber;
+	private int distinctNumbers;
+
+	// labels of nominal columns, by their dictionary index
+	private final BitSet labelSeen = new BitSet();
+	private int labelsNumber;
+
+	// rows of every label, a sample needs the labels seen only once
+	private int[] labelFrequencies = new int[16];
+
+	// rows of the whole file when the profile was computed from a sample of them, 0 otherwise
+	private long populationRows;
+
+	// every label is parsed once, later rows of the label use the cached number
+	private final NumberParser numberParser;
+	private final BitSet labelParsed = new BitSet();
+	private final BitSet labelIsNumber = new BitSet();
+	private double[] labelNumbers = new double[16];
+
+	// two different lengths are enough to know that the column has no same digital number
+	private final Set<Integer> uniqueLength = new HashSet<>();
+
+	// lengths of all numbers, needed when neither the values nor the distinct values are kept
+	private final Set<Integer> numberLength = new HashSet<>();
+
+	// computed on demand, requires sorting
+	private StatisticValuesModel statisticValues;
+
+	public ColumnProfile(ExtractionSettingsModel settings) {
+		this.settings = settings;
+		distinctValues = new DistinctCounter(settings);
+		numberParser = new NumberParser(settings.LocaleNumbers);
+		quantileSketch = settings.ApproximateQuantiles ? new QuantileSketch(settings.QuantileRelativeError) : null;
+	}
+
+	public ColumnProfile(Instances instances, int columnNumber, double[] column, ExtractionSettingsModel settings) {
+		this(settings);
+
+		Attribute attribute = instances.attribute(columnNumber);
+
+		// a long column is profiled in row ranges at the same time, the partial profiles are merged in row order
+		if (column.length > settings.ColumnChunkRows) {
+			Merge(new ColumnChunkTask(attribute, column, 0, column.length, settings).invoke());
+		} else {
+			AddRows(attribute, column, 0, column.length);
+		}
+
+		Finish(attribute.isNumeric(), attribute.isNominal());
+	}
+
+	// 0 - Accumulation ///////////////////////////////////////
+
+	// rows from fromRow to toRow (exclusive) of a dataset column
+	public void AddRows(Attribute attribute, double[] column, int fromRow, int toRow) {
+		if (attribute.isNumeric()) {
+			addNumbers(column, fromRow, toRow);
+			return;
+		}
+
+		if (!attribute.isNominal()) {
+			rowsNumber += toRow - fromRow;
+			return;
+		}
+
+		int[] labelCounts = new int[attribute.numValues()];
+
+		for (int row = fromRow; row < toRow; row++) {
+			if (Double.isNaN(column[row])) {
+				missingNumber++;
+			} else {
+				labelCounts[(int) column[row]]++;
+			}
+		}
+
+		rowsNumber += toRow - fromRow;
+
+		for (int labelIndex = 0; labelIndex < labelCounts.length; labelIndex++) {
+			if (labelCounts[labelIndex] > 0) {
+				addLabel(labelIndex, attribute.value(labelIndex), labelCounts[labelIndex]);
+			}
+		}
+
+		// the moments and the quantile sketch depend on the order of numbers, so they still go row by row
+		for (int row = fromRow; row < toRow; row++) {
+			if (!Double.isNaN(column[row])) {
+				int labelIndex = (int) column[row];
+
+				if (labelIsNumber.get(labelIndex)) {
+					accumulateOrdered(labelNumbers[labelIndex]);
+				}
+			}
+		}
+	}
+
+	// numeric rows, classes of all numbers are counted by one kernel pass and missing values are NaN
+	private void addNumbers(double[] column, int fromRow, int toRow) {
+		NumberClassesModel classes = NumericKernels.CountClasses(column, fromRow, toRow);
+
+		rowsNumber += toRow - fromRow;
+		missingNumber += classes.MissingNumber;
+		intNumbers += classes.IntNumber;
+		realNumbers += classes.RealNumber;
+		zeroValue += classes.ZeroValue;
+		positiveValue += classes.PositiveValue;
+		negativeValue += classes.NegativeValue;
+
+		for (int row = fromRow; row < toRow; row++) {
+			if (!Double.isNaN(column[row])) {
+				accumulateNumber(column[row]);
+			}
+		}
+	}
+
+	public void AddMissing() {
+		rowsNumber++;
+		missingNumber++;
+	}
+
+	// row of a numeric column
+	public void AddNumber(double tmpVal) {
+		rowsNumber++;
+		countNumber(tmpVal);
+	}
+
+	// rows of a nominal column as indexes of the labels list, -1 for missing values
+	public void AddLabelRows(int[] labelRows, int fromRow, int toRow, List<String> labels) {
+		int[] labelCounts = new int[labels.size()];
+
+		for (int row = fromRow; row < toRow; row++) {
+			if (labelRows[row] < 0) {
+				missingNumber++;
+			} else {
+				labelCounts[labelRows[row]]++;
+			}
+		}
+
+		rowsNumber += toRow - fromRow;
+
+		for (int labelIndex = 0; labelIndex < labelCounts.length; labelIndex++) {
+			if (labelCounts[labelIndex] > 0) {
+				addLabel(labelIndex, labels.get(labelIndex), labelCounts[labelIndex]);
+			}
+		}
+
+		for (int row = fromRow; row < toRow; row++) {
+			int labelIndex = labelRows[row];
+
+			if (labelIndex >= 0 && labelIsNumber.get(labelIndex)) {
+				accumulateOrdered(labelNumbers[labelIndex]);
+			}
+		}
+	}
+
+	// label of a nominal column with the number of its rows, everything except the order dependent part
+	// labelIndex identifies the label in the column dictionary
+	private void addLabel(int labelIndex, String label, int count) {
+		if (!labelSeen.get(labelIndex)) {
+			labelSeen.set(labelIndex);
+			labelsNumber++;
+			addLength(label.length());
+		}
+
+		if (labelIndex >= labelFrequencies.length) {
+			labelFrequencies = Arrays.copyOf(labelFrequencies, Math.max(labelIndex + 1, labelFrequencies.length * 2));
+		}
+
+		labelFrequencies[labelIndex] += count;
+
+		if (!labelParsed.get(labelIndex)) {
+			labelParsed.set(labelIndex);
+
+			if (numberParser.Parse(label)) {
+				if (labelIndex >= labelNumbers.length) {
+					labelNumbers = Arrays.copyOf(labelNumbers, Math.max(labelIndex + 1, labelNumbers.length * 2));
+				}
+
+				labelNumbers[labelIndex] = numberParser.GetValue();
+				labelIsNumber.set(labelIndex);
+			}
+		}
+
+		if (!labelIsNumber.get(labelIndex)) {
+			notNumber += count;
+			return;
+		}
+
+		classifyNumber(labelNumbers[labelIndex], count);
+		accumulateDistinct(labelNumbers[labelIndex], count);
+	}
+
+	// row of a column that is neither numeric nor nominal
+	public void AddOther() {
+		rowsNumber++;
+	}
+
+	// rows of the other profile follow the rows of this one, neither of them may be finished
+	public void Merge(ColumnProfile other) {
+		rowsNumber += other.rowsNumber;
+		missingNumber += other.missingNumber;
+		intNumbers += other.intNumbers;
+		realNumbers += other.realNumbers;
+		notNumber += other.notNumber;
+		positiveValue += other.positiveValue;
+		negativeValue += other.negativeValue;
+		zeroValue += other.zeroValue;
+
+		moments.Merge(other.moments);
+		distinctValues.Merge(other.distinctValues);
+
+		if (values != null && other.values != null) {
+			values.AddAll(other.values);
+		} else {
+			values = null;
+		}
+
+		if (quantileSketch != null) {
+			quantileSketch.Merge(other.quantileSketch);
+
+			if (values != null && values.Size() >= settings.ApproximateQuantileRows) {
+				values = null;
+			}
+		}
+
+		labelSeen.or(other.labelSeen);
+
+		if (other.labelFrequencies.length > labelFrequencies.length) {
+			labelFrequencies = Arrays.copyOf(labelFrequencies, other.labelFrequencies.length);
+		}
+
+		for (int labelIndex = 0; labelIndex < other.labelFrequencies.length; labelIndex++) {
+			labelFrequencies[labelIndex] += other.labelFrequencies[labelIndex];
+		}
+		labelsNumber = labelSeen.cardinality();
+
+		for (int length : other.uniqueLength) {
+			addLength(length);
+		}
+
+		for (int length : other.numberLength) {
+			if (numberLength.size() < 2) {
+				numberLength.add(length);
+			}
+		}
+	}
+
+	// must be called once, after all rows were added
+	public void Finish(boolean numeric, boolean nominal) {
+		this.numeric = numeric;
+		this.nominal = nominal;
+
+		if (numeric) {
+			// missing numeric values are NaN
+			for (int row = 0; row < missingNumber; row++) {
+				countNumber(Double.NaN);
+			}
+
+			uniqueNumber = distinctValues.Count();
+			distinctNumbers = uniqueNumber;
+
+			if (GetDataType() == 1) {
+				// lengths of distinct values are enough, without them every value is checked
+				if (distinctValues.IsExact() || values != null) {
+					double[] lengthValues = distinctValues.IsExact() ? distinctValues.GetValues() : values.ToArray();
+
+					for (double lengthValue : lengthValues) {
+						if (!addLength(String.valueOf(lengthValue).length())) {
+							break;
+						}
+					}
+				} else {
+					for (int length : numberLength) {
+						addLength(length);
+					}
+				}
+			}
+		} else if (nominal) {
+			// missing cells are read as "?", which is not a number
+			notNumber += missingNumber;
+
+			distinctNumbers = distinctValues.Count();
+			uniqueNumber = labelsNumber;
+
+			if (missingNumber > 0) {
+				uniqueNumber++;
+				addLength(1);
+			}
+		}
+	}
+
+	private void countNumber(double tmpVal) {
+		classifyNumber(tmpVal, 1);
+		accumulateNumber(tmpVal);
+	}
+
+	private void classifyNumber(double tmpVal, int count) {
+		double fraction = Math.abs(tmpVal - Math.floor(tmpVal));
+
+		if (Math.abs(fraction) < 2 * Double.MIN_VALUE) {
+			intNumbers += count;
+		} else {
+			realNumbers += count;
+		}
+
+		if (Math.abs(tmpVal) < 2 * Double.MIN_VALUE) {
+			zeroValue += count;
+		} else if (tmpVal > 0) {
+			positiveValue += count;
+		} else {
+			negativeValue += count;
+		}
+	}
+
+	// everything except the classes of the number
+	private void accumulateNumber(double tmpVal) {
+		accumulateOrdered(tmpVal);
+		accumulateDistinct(tmpVal, 1);
+	}
+
+	private void accumulateOrdered(double tmpVal) {
+		moments.Add(tmpVal);
+
+		if (values != null) {
+			values.Add(tmpVal);
+		}
+
+		if (quantileSketch != null) {
+			quantileSketch.Add(tmpVal);
+
+			// a large column is described by the sketch and the moments, its values are no longer kept
+			if (values != null && values.Size() >= settings.ApproximateQuantileRows) {
+				values = null;
+			}
+		}
+	}
+
+	// the same number count times
+	private void accumulateDistinct(double tmpVal, int count) {
+		distinctValues.Add(tmpVal, count);
+
+		if (quantileSketch != null && numberLength.size() < 2) {
+			numberLength.add(String.valueOf(tmpVal).length());
+		}
+	}
+
+	// returns false when the column can no longer have the same length
+	private boolean addLength(int length) {
+		if (uniqueLength.size() < 2) {
+			uniqueLength.add(length);
+		}
+
+		return uniqueLength.size() < 2;
+	}
+
+	private boolean isNumericOrNominal() {
+		return numeric || nominal;
+	}
+
+	private int getValidNumber() {
+		return (int) moments.Count();
+	}
+
+	private double getAverage() {
+		return moments.GetAverage();
+	}
+
+	// 1 - General Features ///////////////////////////////////////
+
+	public int GetDataType() {
+		if (!isNumericOrNominal()) {
+			return -1; // no numeric or nominal column
+		}
+
+		if (nominal && notNumber > (rowsNumber * 0.8)) {
+			return -1;
+		}
+
+		if (realNumbers > intNumbers) {
+			return 0; // float column
+		}
+
+		return 1; // integer column
+	}
+
+	public ValueRatioModel GetPositiveNegativeZeroValueRatio() {
+		ValueRatioModel valueRatio = new ValueRatioModel();
+		valueRatio.NegativeValueRatio = -1;
+		valueRatio.PositiveValueRatio = -1;
+		valueRatio.ZeroValueRatio = -1;
+
+		if (!isNumericOrNominal()) {
+			return valueRatio;
+		}
+
+		// numeric columns are divided by all rows, nominal ones only by parsed numbers
+		int fixedInstancesNumber = numeric ? rowsNumber : getValidNumber();
+
+		if (nominal && fixedInstancesNumber <= 0) {
+			return valueRatio;
+		}
+
+		valueRatio.NegativeValueRatio = negativeValue / (double) fixedInstancesNumber;
+		valueRatio.PositiveValueRatio = positiveValue / (double) fixedInstancesNumber;
+		valueRatio.ZeroValueRatio = zeroValue / (double) fixedInstancesNumber;
+
+		if (Double.isNaN(valueRatio.NegativeValueRatio)) {
+			valueRatio.NegativeValueRatio = 0;
+		}
+
+		if (Double.isNaN(valueRatio.PositiveValueRatio)) {
+			valueRatio.PositiveValueRatio = 0;
+		}
+
+		if (Double.isNaN(valueRatio.ZeroValueRatio)) {
+			valueRatio.ZeroValueRatio = 0;
+		}
+
+		return valueRatio;
+	}
+
+	public double GetUniqueValueRatio() {
+		if (!isNumericOrNominal()) {
+			return -1; // no numeric or nominal column
+		}
+
+		double uniqueRatio = isSample() ? getEstimatedDistinct() / populationRows
+				: (double) uniqueNumber / (double) rowsNumber;
+
+		if (Double.isNaN(uniqueRatio)) {
+			uniqueRatio = 0;
+		}
+
+		return uniqueRatio;
+	}
+
+	public int GetSameDigitalNumber() {
+		int dataType = GetDataType();
+
+		if (dataType == -1) // must be integer
+		{
+			return -1;
+		}
+
+		if (dataType == 0) {
+			return 0;
+		}
+
+		if (uniqueLength.size() == 1) {
+			return 1;
+		}
+
+		return 0;
+	}
+
+	// 2 - Statistical Features ///////////////////////////////////////
+
+	public StatisticValuesModel GetAvgMinMaxMedianUpquarLowquar() {
+		if (statisticValues == null) {
+			statisticValues = computeStatisticValues();
+		}
+
+		return statisticValues;
+	}
+
+	private StatisticValuesModel computeStatisticValues() {
+		StatisticValuesModel statisticValues = new StatisticValuesModel();
+		statisticValues.Average = -1;
+		statisticValues.Minimum = -1;
+		statisticValues.Maximum = -1;
+		statisticValues.Median = -1;
+		statisticValues.UpperQuartile = -1;
+		statisticValues.LowerQuartile = -1;
+
+		int validNumber = getValidNumber();
+
+		if (!isNumericOrNominal() || validNumber == 0) {
+			return statisticValues;
+		}
+
+		// a single value has no quartiles
+		if (validNumber == 1) {
+			return new StatisticValuesModel();
+		}
+
+		statisticValues.Average = getAverage();
+		statisticValues.Minimum = moments.GetMinimum();
+		statisticValues.Maximum = moments.GetMaximum();
+
+		// an even column has the median between two values, quartiles can be between two values too
+		int[] medianPositions = validNumber % 2 == 0 ? new int[] { validNumber / 2, validNumber / 2 - 1 }
+				: new int[] { validNumber / 2 };
+		int[] lowerPositions = getQuartilePositions(validNumber, 1);
+		int[] upperPositions = getQuartilePositions(validNumber, 3);
+
+		int[] positions = new int[medianPositions.length + lowerPositions.length + upperPositions.length];
+		System.arraycopy(medianPositions, 0, positions, 0, medianPositions.length);
+		System.arraycopy(lowerPositions, 0, positions, medianPositions.length, lowerPositions.length);
+		System.arraycopy(upperPositions, 0, positions, medianPositions.length + lowerPositions.length,
+				upperPositions.length);
+
+		double[] sortedValues = getSortedValues(positions);
+
+		statisticValues.Median = getMean(sortedValues, 0, medianPositions.length);
+		statisticValues.LowerQuartile = getMean(sortedValues, medianPositions.length, lowerPositions.length);
+		statisticValues.UpperQuartile = getMean(sortedValues, medianPositions.length + lowerPositions.length,
+				upperPositions.length);
+
+		if (Double.isNaN(statisticValues.Average)) {
+			statisticValues.Average = 0;
+		}
+
+		if (Double.isNaN(statisticValues.Minimum)) {
+			statisticValues.Minimum = 0;
+		}
+
+		if (Double.isNaN(statisticValues.Maximum)) {
+			statisticValues.Maximum = 0;
+		}
+
+		if (Double.isNaN(statisticValues.Median)) {
+			statisticValues.Median = 0;
+		}
+
+		if (Double.isNaN(statisticValues.LowerQuartile)) {
+			statisticValues.LowerQuartile = 0;
+		}
+
+		if (Double.isNaN(statisticValues.UpperQuartile)) {
+			statisticValues.UpperQuartile = 0;
+		}
+
+		return statisticValues;
+	}
+
+	// sorted positions of a quartile, same float arithmetic as the original quartile formula
+	private static int[] getQuartilePositions(int validNumber, int quartileType) {
+		float length = validNumber - 1;
+		float newArraySize = (length * ((float) (quartileType) * 25 / 100)) - 1;
+
+		if (newArraySize % 1 == 0) {
+			return new int[] { (int) (newArraySize) };
+		}
+
+		int newArraySize1 = (int) (newArraySize);
+		return new int[] { newArraySize1, newArraySize1 + 1 };
+	}
+
+	// values at sorted positions, selected from the column or read from the sketch of a large column
+	// row order is not needed after Finish, so the values are reordered in place
+	private double[] getSortedValues(int[] positions) {
+		if (values == null) {
+			double[] sortedValues = new double[positions.length];
+
+			for (int i = 0; i < positions.length; i++) {
+				sortedValues[i] = quantileSketch.GetValue(positions[i]);
+			}
+
+			return sortedValues;
+		}
+
+		return Quantiles.Select(values.Elements(), getValidNumber(), positions);
+	}
+
+	// one value or the middle of two values
+	private static double getMean(double[] sortedValues, int start, int length) {
+		if (length == 1) {
+			return sortedValues[start];
+		}
+
+		return (sortedValues[start] + sortedValues[start + 1]) / 2;
+	}
+
+	public double GetCoefficientOfVariation() {
+		if (!isNumericOrNominal()) {
+			return -1;
+		}
+
+		int validNumber = getValidNumber();
+
+		if (validNumber == 0) {
+			return -1;
+		}
+
+		double average = getAverage();
+		double squaredDiffMean = (moments.GetSquaredDifferenceSum()) / (validNumber);
+		double stdev = (Math.sqrt(squaredDiffMean));
+
+		if (Math.abs(average) < 2 * Double.MIN_VALUE) {
+			return stdev;
+		}
+
+		stdev = stdev / average;
+
+		if (Double.isNaN(stdev)) {
+			stdev = 0;
+		}
+
+		return stdev;
+	}
+
+	public double GetRangeRatio() {
+		if (!isNumericOrNominal()) {
+			return -1; // no numeric or nominal column
+		}
+
+		double rangeRatio = -1;
+
+		if (distinctNumbers > 0) {
+			rangeRatio = (moments.GetMaximum() - moments.GetMinimum()) / distinctNumbers;
+		}
+
+		if (Double.isNaN(rangeRatio)) {
+			rangeRatio = 0;
+		}
+
+		return rangeRatio;
+	}
+
+	// 3 - Sampling ///////////////////////////////////////
+
+	// the rows of the profile are a sample of populationRows rows, features become estimates
+	public void SetPopulationRows(long populationRows) {
+		this.populationRows = populationRows;
+	}
+
+	private boolean isSample() {
+		return populationRows > rowsNumber;
+	}
+
+	// 95% bounds of the estimated features, null when all rows were profiled
+	public SampleErrorModel GetSampleErrors() {
+		if (!isSample()) {
+			return null;
+		}
+
+		SampleErrorModel errors = new SampleErrorModel();
+		errors.SampleRows = rowsNumber;
+		errors.TotalRows = populationRows;
+
+		if (!isNumericOrNominal()) {
+			return errors;
+		}
+
+		// ratios are proportions of the rows they are divided by
+		ValueRatioModel valueRatio = GetPositiveNegativeZeroValueRatio();
+		int ratioRows = numeric ? rowsNumber : getValidNumber();
+
+		errors.PositiveValueRatio = getProportionError(valueRatio.PositiveValueRatio, ratioRows);
+		errors.NegativeValueRatio = getProportionError(valueRatio.NegativeValueRatio, ratioRows);
+		errors.ZeroValueRatio = getProportionError(valueRatio.ZeroValueRatio, ratioRows);
+
+		// every distinct value of the sample exists in the file, a value seen once can stand for many
+		int singletons = getSingletonNumber();
+		errors.UniqueValueRatioLower = Math.min(1, (double) uniqueNumber / populationRows);
+		errors.UniqueValueRatioUpper = Math.min(1,
+				(uniqueNumber - singletons + singletons * ((double) populationRows / rowsNumber)) / populationRows);
+
+		int validNumber = getValidNumber();
+
+		if (validNumber < 2) {
+			return errors;
+		}
+
+		double standardDeviation = Math.sqrt(moments.GetSquaredDifferenceSum() / (validNumber - 1));
+		errors.Average = zeroIfNaN(SAMPLE_CONFIDENCE_Z * standardDeviation / Math.sqrt(validNumber)
+				* getFiniteCorrection(validNumber));
+
+		double[] median = getQuantileInterval(0.5, validNumber);
+		double[] lowerQuartile = getQuantileInterval(0.25, validNumber);
+		double[] upperQuartile = getQuantileInterval(0.75, validNumber);
+
+		errors.MedianLower = median[0];
+		errors.MedianUpper = median[1];
+		errors.LowerQuartileLower = lowerQuartile[0];
+		errors.LowerQuartileUpper = lowerQuartile[1];
+		errors.UpperQuartileLower = upperQuartile[0];
+		errors.UpperQuartileUpper = upperQuartile[1];
+
+		return errors;
+	}
+
+	// distinct values of the file by the GEE estimator: values seen once are scaled by sqrt(N / n)
+	private double getEstimatedDistinct() {
+		int singletons = getSingletonNumber();
+		double estimated = Math.sqrt((double) populationRows / rowsNumber) * singletons + (uniqueNumber - singletons);
+
+		return Math.min(populationRows, Math.max(uniqueNumber, estimated));
+	}
+
+	// values that appear in exactly one row of the sample
+	private int getSingletonNumber() {
+		if (nominal) {
+			int singletons = missingNumber == 1 ? 1 : 0;
+
+			for (int frequency : labelFrequencies) {
+				if (frequency == 1) {
+					singletons++;
+				}
+			}
+
+			return singletons;
+		}
+
+		// a large sample kept only by the quantile sketch is counted as having no single values
+		if (values == null) {
+			return 0;
+		}
+
+		double[] sorted = values.ToArray();
+		Arrays.sort(sorted);
+
+		int singletons = 0;
+		int runStart = 0;
+
+		for (int i = 1; i <= sorted.length; i++) {
+			if (i == sorted.length || Double.compare(sorted[i], sorted[runStart]) != 0) {
+				if (i - runStart == 1) {
+					singletons++;
+				}
+
+				runStart = i;
+			}
+		}
+
+		return singletons;
+	}
+
+	private double getProportionError(double proportion, int sampleNumber) {
+		if (proportion < 0 || sampleNumber <= 0) {
+			return 0;
+		}
+
+		// Agresti-Coull: two successes and two failures are added, so a ratio of 0 or 1 still has an error
+		double adjustedNumber = sampleNumber + SAMPLE_CONFIDENCE_Z * SAMPLE_CONFIDENCE_Z;
+		double adjusted = (proportion * sampleNumber + SAMPLE_CONFIDENCE_Z * SAMPLE_CONFIDENCE_Z / 2) / adjustedNumber;
+
+		return SAMPLE_CONFIDENCE_Z * Math.sqrt(adjusted * (1 - adjusted) / adjustedNumber)
+				* getFiniteCorrection(sampleNumber);
+	}
+
+	// a sample of a large part of the file has a smaller error, the part of the file is estimated from the rows
+	private double getFiniteCorrection(int sampleNumber) {
+		double populationNumber = (double) sampleNumber * populationRows / rowsNumber;
+
+		if (populationNumber <= 1) {
+			return 0;
+		}
+
+		return Math.sqrt(Math.max(0, (populationNumber - sampleNumber) / (populationNumber - 1)));
+	}
+
+	// values at the sorted positions around the quantile that contain the quantile of the file
+	private double[] getQuantileInterval(double quantile, int validNumber) {
+		double halfWidth = SAMPLE_CONFIDENCE_Z * Math.sqrt(validNumber * quantile * (1 - quantile))
+				* getFiniteCorrection(validNumber);
+
+		int lowerPosition = (int) Math.max(0, Math.floor(validNumber * quantile - halfWidth));
+		int upperPosition = (int) Math.min(validNumber - 1, Math.ceil(validNumber * quantile + halfWidth));
+
+		double[] interval = getSortedValues(new int[] { lowerPosition, upperPosition });
+		interval[0] = zeroIfNaN(interval[0]);
+		interval[1] = zeroIfNaN(interval[1]);
+
+		return interval;
+	}
+
+	private static double zeroIfNaN(double value) {
+		return Double.isNaN(value) ? 0 : value;
+	}
+}
@@ -0,0 +1,47 @@
+package tpdia_project;
+
+// data types of all columns of a dataset, computed once and shared by the inter-column features
+public class ColumnTypeIndex {
+	private final int[] dataTypes;
+	private final double numericalColumnRatio;
+
+	public ColumnTypeIndex(int[] dataTypes) {
+		this.dataTypes = dataTypes;
+
+		int columnsWithNumbers = 0;
+		for (int dataType : dataTypes) {
+			if (dataType != -1) {
+				columnsWithNumbers++;
+			}
+		}
+
+		double numericalColumnRatio = (double) columnsWithNumbers / (double) dataTypes.length;
+
+		if (Double.isNaN(numericalColumnRatio)) {
+			numericalColumnRatio = 0;
+		}
+
+		this.numericalColumnRatio = numericalColumnRatio;
+	}
+
+	public int GetColumnsNumber() {
+		return dataTypes.length;
+	}
+
+	public int GetDataType(int columnNumber) {
+		return dataTypes[columnNumber];
+	}
+
+	// columns outside of the dataset are not numerical
+	public boolean IsNumerical(int columnNumber) {
+		if (columnNumber < 0 || columnNumber >= dataTypes.length) {
+			return false;
+		}
+
+		return dataTypes[columnNumber] != -1;
+	}
+
+	public double GetNumericalColumnRatio() {
+		return numericalColumnRatio;
+	}
+}
@@ -0,0 +1,53 @@
+package tpdia_project;
+
+import tpdia_project.Models.ExtractionSettingsModel;
+import weka.core.Instances;
+
+// per-dataset store of column vectors, every attribute is materialized only once
+// columns can be filled by different threads, as long as one column is used by one thread
+public class ColumnVectorCache {
+	private final Instances dataset;
+	private final double[][] vectors;
+	private final ColumnProfile[] profiles;
+	private final ExtractionSettingsModel settings;
+
+	public ColumnVectorCache(Instances dataset, ExtractionSettingsModel settings) {
+		this.dataset = dataset;
+		this.settings = settings;
+		this.vectors = new double[dataset.numAttributes()][];
+		this.profiles = new ColumnProfile[dataset.numAttributes()];
+	}
+
+	public Instances GetDataset() {
+		return dataset;
+	}
+
+	// values of the column, nominal columns hold label indexes and missing values are NaN
+	public double[] GetVector(int columnNumber) {
+		if (vectors[columnNumber] == null) {
+			vectors[columnNumber] = dataset.attributeToDoubleArray(columnNumber);
+		}
+
+		return vectors[columnNumber];
+	}
+
+	public ColumnProfile GetProfile(int columnNumber) {
+		if (profiles[columnNumber] == null) {
+			profiles[columnNumber] = new ColumnProfile(dataset, columnNumber, GetVector(columnNumber), settings);
+		}
+
+		return profiles[columnNumber];
+	}
+
+	// must be called after values of the column were changed in the dataset
+	public void Invalidate(int columnNumber) {
+		vectors[columnNumber] = null;
+		profiles[columnNumber] = null;
+	}
+
+	public void InvalidateAll() {
+		for (int columnNumber = 0; columnNumber < vectors.length; columnNumber++) {
+			Invalidate(columnNumber);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package tpdia_project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import tpdia_project.Models.CommandLineModel;
+import tpdia_project.Models.ExtractionSettingsModel;
+
+// subcommands of the program with their options, e.g. "extract --domains AFD,CA --workers 4"
+// options are written as "--name value" or "--name=value", flags have no value
+public class CommandLineParser {
+	// options of every command, names ending with '=' take a value
+	private static final Map<String, List<String>> COMMANDS = new LinkedHashMap<String, List<String>>();
+
+	static {
+		List<String> common = Arrays.asList("workers=", "models=");
+
+		COMMANDS.put("extract", join(common, "root=", "domains=", "streaming", "rebuild", "cache", "sample-rows=",
+				"sample-fraction=", "no-csv-export", "locale-numbers", "approximate-distinct", "distinct-error=",
+				"approximate-quantiles", "quantile-error="));
+		COMMANDS.put("train", join(common, "retrain"));
+		COMMANDS.put("evaluate", join(common, "algorithms=", "retrain", "check-serial"));
+		COMMANDS.put("score", join(common, "format=", "output=", "sample-rows=", "sample-fraction=", "locale-numbers",
+				"approximate-distinct", "distinct-error=", "approximate-quantiles", "quantile-error=", "retrain"));
+		COMMANDS.put("serve", join(common, "port=", "sample-rows=", "sample-fraction=", "locale-numbers",
+				"approximate-distinct", "distinct-error=", "approximate-quantiles", "quantile-error=", "retrain"));
+		COMMANDS.put("help", Arrays.asList());
+	}
+
+	public static CommandLineModel Parse(String[] args) {
+		if (args.length == 0) {
+			throw new IllegalArgumentException("No command given");
+		}
+
+		CommandLineModel commandLine = new CommandLineModel();
+		commandLine.Command = args[0];
+
+		List<String> options = COMMANDS.get(commandLine.Command);
+
+		if (options == null) {
+			throw new IllegalArgumentException("Unknown command: " + commandLine.Command);
+		}
+
+		for (int i = 1; i < args.length; i++) {
+			String arg = args[i];
+
+			if (!arg.startsWith("--")) {
+				commandLine.Arguments.add(arg);
+				continue;
+			}
+
+			int equalsAt = arg.indexOf('=');
+			String name = equalsAt >= 0 ? arg.substring(2, equalsAt) : arg.substring(2);
+
+			if (options.contains(name + "=")) {
+				if (equalsAt >= 0) {
+					commandLine.Options.put(name, arg.substring(equalsAt + 1));
+				} else if (i + 1 < args.length) {
+					commandLine.Options.put(name, args[++i]);
+				} else {
+					throw new IllegalArgumentException("Option --" + name + " needs a value");
+				}
+			} else if (options.contains(name) && equalsAt < 0) {
+				commandLine.Options.put(name, "true");
+			} else {
+				throw new IllegalArgumentException("Unknown option for " + commandLine.Command + ": " + arg);
+			}
+		}
+
+		return commandLine;
+	}
+
+	public static String GetString(CommandLineModel commandLine, String name, String defaultValue) {
+		return commandLine.Options.getOrDefault(name, defaultValue);
+	}
+
+	public static boolean GetFlag(CommandLineModel commandLine, String name) {
+		return commandLine.Options.containsKey(name);
+	}
+
+	public static int GetInt(CommandLineModel commandLine, String name, int defaultValue) {
+		String value = commandLine.Options.get(name);
+
+		try {
+			return value == null ? defaultValue : Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Option --" + name + " needs a whole number, got: " + value);
+		}
+	}
+
+	public static double GetDouble(CommandLineModel commandLine, String name, double defaultValue) {
+		String value = commandLine.Options.get(name);
+
+		try {
+			return value == null ? defaultValue : Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Option --" + name + " needs a number, got: " + value);
+		}
+	}
+
+	// comma separated values, null when the option is not given
+	public static List<String> GetList(CommandLineModel commandLine, String name) {
+		String value = commandLine.Options.get(name);
+		return value == null ? null : Arrays.asList(value.split(","));
+	}
+
+	public static void PrintUsage() {
+		System.out.println("Usage: MainProgram <command> [options], without a command the menu is shown");
+		System.out.println();
+		System.out.println("Commands:");
+		System.out.println("  extract   computes the features of the datasets into the features table");
+		System.out.println("            --root DIR, --domains A,B, --streaming, --rebuild, --cache, --no-csv-export");
+		System.out.println("  train     trains the measure detection model on the features table");
+		System.out.println("  evaluate  trains and validates the algorithms, --algorithms "
+				+ String.join(",", MLAlgorithms.ALGORITHMS));
+		System.out.println("            --check-serial compares the cross-validation with the serial one of weka");
+		System.out.println("  score     detects measure columns of CSV files or directories given as arguments");
+		System.out.println("            --format " + String.join("|", TableScoresWriter.FORMATS) + ", --output FILE");
+		System.out.println("  serve     starts the local measure detection service, --port N (8080)");
+		System.out.println("  help      shows this text");
+		System.out.println();
+		System.out.println("Options of all commands: --workers N, --models DIR");
+		System.out.println("Sampling of rows: --sample-rows N or --sample-fraction F (extract, score, serve)");
+		System.out.println("Thousands separators and decimal commas: --locale-numbers (extract, score, serve)");
+		ExtractionSettingsModel settings = new ExtractionSettingsModel();
+		System.out.println("Distinct numbers of columns with at least " + settings.ApproximateDistinctRows
+				+ " numbers by HyperLogLog:");
+		System.out.println("            --approximate-distinct, --distinct-error E (extract, score, serve)");
+		System.out.println("Quantiles of columns with at least " + settings.ApproximateQuantileRows
+				+ " numbers from a sketch:");
+		System.out.println("            --approximate-quantiles, --quantile-error E (extract, score, serve,");
+		System.out.println("            on with --streaming)");
+		System.out.println("Models are trained again with --retrain (train, evaluate, score, serve)");
+		System.out.println();
+		System.out.println("Exit codes: 0 - success, 1 - the command failed, 2 - wrong command line,");
+		System.out.println("            3 - some files could not be scored");
+	}
+
+	private static List<String> join(List<String> common, String... options) {
+		List<String> all = new ArrayList<String>(common);
+		all.addAll(Arrays.asList(options));
+		return all;
+	}
+}
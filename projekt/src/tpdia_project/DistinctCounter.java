@@ -0,0 +1,91 @@
+package tpdia_project;
+
+import tpdia_project.Models.ExtractionSettingsModel;
+
+// counts distinct values of a column, exactly or with HyperLogLog for very large columns
+public class DistinctCounter {
+	private final ExtractionSettingsModel settings;
+	private DoubleHashSet exactValues;
+	private HyperLogLog approximateValues;
+	private int addedNumber;
+
+	public DistinctCounter(ExtractionSettingsModel settings) {
+		this.settings = settings;
+		this.exactValues = new DoubleHashSet();
+	}
+
+	public void Add(double value) {
+		Add(value, 1);
+	}
+
+	// the same value count times, e.g. all rows of one nominal label
+	public void Add(double value, int count) {
+		if (exactValues != null) {
+			exactValues.Add(value);
+			addedNumber += count;
+
+			// values are not known in advance when the column is streamed, so the mode changes on the way
+			if (settings.ApproximateDistinct && addedNumber >= settings.ApproximateDistinctRows) {
+				switchToApproximate();
+			}
+		} else {
+			approximateValues.Add(value);
+		}
+	}
+
+	// adds the values counted by another counter with the same settings
+	public void Merge(DistinctCounter other) {
+		addedNumber += other.addedNumber;
+
+		if (exactValues != null && other.exactValues != null) {
+			for (double value : other.exactValues.ToArray()) {
+				exactValues.Add(value);
+			}
+
+			if (settings.ApproximateDistinct && addedNumber >= settings.ApproximateDistinctRows) {
+				switchToApproximate();
+			}
+
+			return;
+		}
+
+		if (exactValues != null) {
+			switchToApproximate();
+		}
+
+		if (other.exactValues != null) {
+			for (double value : other.exactValues.ToArray()) {
+				approximateValues.Add(value);
+			}
+		} else {
+			approximateValues.Merge(other.approximateValues);
+		}
+	}
+
+	private void switchToApproximate() {
+		approximateValues = new HyperLogLog(settings.DistinctRelativeError);
+
+		for (double exactValue : exactValues.ToArray()) {
+			approximateValues.Add(exactValue);
+		}
+
+		exactValues = null;
+	}
+
+	public int Count() {
+		if (exactValues != null) {
+			return exactValues.Size();
+		}
+
+		return (int) approximateValues.Count();
+	}
+
+	public boolean IsExact() {
+		return exactValues != null;
+	}
+
+	// distinct values, only available in exact mode
+	public double[] GetValues() {
+		return exactValues.ToArray();
+	}
+}
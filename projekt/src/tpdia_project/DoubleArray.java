@@ -0,0 +1,55 @@
+package tpdia_project;
+
+import java.util.Arrays;
+
+// growable array of primitive doubles
+public class DoubleArray {
+	private double[] elements;
+	private int size;
+
+	public DoubleArray() {
+		this(16);
+	}
+
+	public DoubleArray(int capacity) {
+		elements = new double[Math.max(capacity, 1)];
+	}
+
+	public void Add(double value) {
+		if (size == elements.length) {
+			elements = Arrays.copyOf(elements, elements.length << 1);
+		}
+
+		elements[size++] = value;
+	}
+
+	public void AddAll(DoubleArray other) {
+		if (size + other.size > elements.length) {
+			elements = Arrays.copyOf(elements, Math.max(elements.length << 1, size + other.size));
+		}
+
+		System.arraycopy(other.elements, 0, elements, size, other.size);
+		size += other.size;
+	}
+
+	public double Get(int index) {
+		return elements[index];
+	}
+
+	public int Size() {
+		return size;
+	}
+
+	// backing array, only the first Size() elements are used
+	public double[] Elements() {
+		return elements;
+	}
+
+	public double[] ToArray() {
+		return Arrays.copyOf(elements, size);
+	}
+
+	public void Sort() {
+		Arrays.sort(elements, 0, size);
+	}
+}
@@ -0,0 +1,138 @@
+package tpdia_project;
+
+// set of double values with open addressing over their bits, no boxing of values
+public class DoubleHashSet {
+	private static final double LOAD_FACTOR = 0.5;
+
+	// bits 0 (positive zero) marks an empty slot, so zero is kept aside
+	private long[] slots;
+	private boolean containsZero;
+	private int size;
+	private int resizeSize;
+
+	public DoubleHashSet() {
+		this(16);
+	}
+
+	public DoubleHashSet(int expectedSize) {
+		int capacity = 16;
+		while (capacity * LOAD_FACTOR < expectedSize && capacity < (1 << 30)) {
+			capacity <<= 1;
+		}
+
+		slots = new long[capacity];
+		resizeSize = (int) (capacity * LOAD_FACTOR);
+	}
+
+	// values are equal the same way as Double.equals, so all NaN values are one value
+	public boolean Add(double value) {
+		long bits = Double.doubleToLongBits(value);
+
+		if (bits == 0) {
+			if (containsZero) {
+				return false;
+			}
+
+			containsZero = true;
+			size++;
+			return true;
+		}
+
+		int mask = slots.length - 1;
+		int slot = Hash(bits) & mask;
+
+		while (slots[slot] != 0) {
+			if (slots[slot] == bits) {
+				return false;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		slots[slot] = bits;
+		size++;
+
+		if (size > resizeSize) {
+			resize();
+		}
+
+		return true;
+	}
+
+	public boolean Contains(double value) {
+		long bits = Double.doubleToLongBits(value);
+
+		if (bits == 0) {
+			return containsZero;
+		}
+
+		int mask = slots.length - 1;
+		int slot = Hash(bits) & mask;
+
+		while (slots[slot] != 0) {
+			if (slots[slot] == bits) {
+				return true;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return false;
+	}
+
+	public int Size() {
+		return size;
+	}
+
+	public double[] ToArray() {
+		double[] values = new double[size];
+		int index = 0;
+
+		if (containsZero) {
+			values[index++] = 0.0;
+		}
+
+		for (long bits : slots) {
+			if (bits != 0) {
+				values[index++] = Double.longBitsToDouble(bits);
+			}
+		}
+
+		return values;
+	}
+
+	private void resize() {
+		long[] oldSlots = slots;
+		slots = new long[oldSlots.length << 1];
+		resizeSize = (int) (slots.length * LOAD_FACTOR);
+
+		int mask = slots.length - 1;
+
+		for (long bits : oldSlots) {
+			if (bits == 0) {
+				continue;
+			}
+
+			int slot = Hash(bits) & mask;
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+
+			slots[slot] = bits;
+		}
+	}
+
+	// finalizer of MurmurHash3, spreads similar values over the whole table
+	static int Hash(long bits) {
+		return (int) Mix(bits);
+	}
+
+	static long Mix(long bits) {
+		bits ^= bits >>> 33;
+		bits *= 0xff51afd7ed558ccdL;
+		bits ^= bits >>> 33;
+		bits *= 0xc4ceb9fe1a85ec53L;
+		bits ^= bits >>> 33;
+		return bits;
+	}
+}
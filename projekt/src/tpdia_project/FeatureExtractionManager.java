@@ -1,513 +1,84 @@
 package tpdia_project;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
+import tpdia_project.Models.ExtractionSettingsModel;
 import tpdia_project.Models.StatisticValuesModel;
+import tpdia_project.Models.StreamedDatasetModel;
 import tpdia_project.Models.ValueRatioModel;
-import weka.core.Attribute;
-import weka.core.Instance;
 import weka.core.Instances;
 
 // class for extracting features data from columns
+// a manager extracts the features of one dataset, its columns can be read by parallel tasks, one column per task
 public class FeatureExtractionManager {
+	private final ExtractionSettingsModel settings;
+	private ColumnVectorCache columnCache;
 
-	// 1 - General Features ///////////////////////////////////////
-
-	// DataType
-	public int GetDataType(Instances instances, int columnNumber) {
-		Attribute attribute = instances.attribute(columnNumber);
-
-		if (!(attribute.isNumeric() || attribute.isNominal())) {
-			return -1; // no numeric or nominal column
-		}
-
-		int instancesNumber = instances.numInstances();
-
-		int intNumbers = 0;
-		int realNumbers = 0;
-
-		if (attribute.isNumeric()) {
-			for (int row = 0; row < instancesNumber; row++) {
-				double tmpVal = instances.attributeToDoubleArray(columnNumber)[row];
-
-				tmpVal = Math.abs(tmpVal - Math.floor(tmpVal));
+	public FeatureExtractionManager() {
+		this(new ExtractionSettingsModel());
+	}
 
-				if (Math.abs(tmpVal) < 2 * Double.MIN_VALUE) {
-					intNumbers++;
-				} else {
-					realNumbers++;
-				}
-			}
+	public FeatureExtractionManager(ExtractionSettingsModel settings) {
+		this.settings = settings;
+	}
 
-			if (realNumbers > intNumbers) {
-				return 0; // float column
-			}
+	public ExtractionSettingsModel GetSettings() {
+		return settings;
+	}
 
-			return 1; // integer column
+	// column vectors of the dataset, created on the first call
+	// another dataset needs another manager, so a shared manager never returns the columns of the wrong dataset
+	public synchronized ColumnVectorCache GetColumnCache(Instances instances) {
+		if (columnCache == null) {
+			columnCache = new ColumnVectorCache(instances, settings);
+		} else if (columnCache.GetDataset() != instances) {
+			throw new IllegalStateException("The extraction manager already holds the columns of "
+					+ columnCache.GetDataset().relationName() + ", create a new manager for " + instances.relationName());
 		}
 
-		if (attribute.isNominal()) {
-			int notNumber = 0;
-
-			for (int row = 0; row < instancesNumber; row++) {
-				Instance instance = instances.get(row);
-				String tmpValString = instance.stringValue(columnNumber);
-				double tmpVal = 0.0;
-
-				try {
-					tmpVal = Double.parseDouble(tmpValString);
-					tmpVal = Math.abs(tmpVal - Math.floor(tmpVal));
-
-					if (Math.abs(tmpVal) < 2 * Double.MIN_VALUE) {
-						intNumbers++;
-					} else {
-						realNumbers++;
-					}
-
-				} catch (Exception ex) {
-					notNumber++;
-				}
-			}
-
-			if (notNumber > (instancesNumber * 0.8)) {
-				return -1;
-			}
+		return columnCache;
+	}
 
-			if (realNumbers > intNumbers) {
-				return 0; // float column
-			}
+	// profile of one column, decoded once and shared by all general and statistical features
+	public ColumnProfile GetColumnProfile(Instances instances, int columnNumber) {
+		return GetColumnCache(instances).GetProfile(columnNumber);
+	}
 
-			return 1; // integer column
-		}
+	// 1 - General Features ///////////////////////////////////////
 
-		return -1;
+	// DataType
+	public int GetDataType(Instances instances, int columnNumber) {
+		return GetColumnProfile(instances, columnNumber).GetDataType();
 	}
 
 	// Positive, negative, zero value ratio
 	public ValueRatioModel GetPositiveNegativeZeroValueRatio(Instances instances, int columnNumber) {
-		Attribute attribute = instances.attribute(columnNumber);
-
-		ValueRatioModel valueRatio = new ValueRatioModel();
-		valueRatio.NegativeValueRatio = -1;
-		valueRatio.PositiveValueRatio = -1;
-		valueRatio.ZeroValueRatio = -1;
-
-		if (!(attribute.isNumeric() || attribute.isNominal())) {
-			return valueRatio;
-		}
-
-		int instancesNumber = instances.numInstances();
-		int positiveValue = 0;
-		int negativeValue = 0;
-		int zeroValue = 0;
-
-		// column with all numbers
-		if (attribute.isNumeric()) {
-			for (int row = 0; row < instancesNumber; row++) {
-				double tmpVal = instances.attributeToDoubleArray(columnNumber)[row];
-
-				if (Math.abs(tmpVal) < 2 * Double.MIN_VALUE) {
-					zeroValue++;
-				} else if (tmpVal > 0) {
-					positiveValue++;
-				} else {
-					negativeValue++;
-				}
-			}
-
-			valueRatio.NegativeValueRatio = negativeValue / (double) instancesNumber;
-			valueRatio.PositiveValueRatio = positiveValue / (double) instancesNumber;
-			valueRatio.ZeroValueRatio = zeroValue / (double) instancesNumber;
-
-			if (Double.isNaN(valueRatio.NegativeValueRatio)) {
-				valueRatio.NegativeValueRatio = 0;
-			}
-
-			if (Double.isNaN(valueRatio.PositiveValueRatio)) {
-				valueRatio.PositiveValueRatio = 0;
-			}
-
-			if (Double.isNaN(valueRatio.ZeroValueRatio)) {
-				valueRatio.ZeroValueRatio = 0;
-			}
-
-			return valueRatio;
-		}
-
-		int nullInstancesNumber = 0;
-
-		// column that can have null, unknown, etc.
-		if (attribute.isNominal()) {
-			for (int row = 0; row < instancesNumber; row++) {
-				Instance instance = instances.get(row);
-				String tmpValString = instance.stringValue(columnNumber);
-				double tmpVal = 0.0;
-
-				try {
-					tmpVal = Double.parseDouble(tmpValString);
-
-					if (Math.abs(tmpVal) < 2 * Double.MIN_VALUE) {
-						zeroValue++;
-					} else if (tmpVal > 0) {
-						positiveValue++;
-					} else {
-						negativeValue++;
-					}
-
-				} catch (Exception ex) {
-					nullInstancesNumber++;
-				}
-			}
-
-			int fixedInstancesNumber = instancesNumber - nullInstancesNumber;
-
-			if (fixedInstancesNumber <= 0) {
-				return valueRatio;
-			}
-
-			valueRatio.NegativeValueRatio = negativeValue / (double) fixedInstancesNumber;
-			valueRatio.PositiveValueRatio = positiveValue / (double) fixedInstancesNumber;
-			valueRatio.ZeroValueRatio = zeroValue / (double) fixedInstancesNumber;
-
-			if (Double.isNaN(valueRatio.NegativeValueRatio)) {
-				valueRatio.NegativeValueRatio = 0;
-			}
-
-			if (Double.isNaN(valueRatio.PositiveValueRatio)) {
-				valueRatio.PositiveValueRatio = 0;
-			}
-
-			if (Double.isNaN(valueRatio.ZeroValueRatio)) {
-				valueRatio.ZeroValueRatio = 0;
-			}
-
-			return valueRatio;
-		}
-
-		return valueRatio;
+		return GetColumnProfile(instances, columnNumber).GetPositiveNegativeZeroValueRatio();
 	}
 
 	// Unique value ratio
 	public double GetUniqueValueRatio(Instances instances, int columnNumber) {
-		Attribute attribute = instances.attribute(columnNumber);
-
-		if (!(attribute.isNumeric() || attribute.isNominal())) {
-			return -1; // no numeric or nominal column
-		}
-
-		int instancesNumber = instances.numInstances();
-
-		List<String> uniqueValues = new ArrayList<>();
-
-		for (int row = 0; row < instancesNumber; row++) {
-			Instance instance = instances.get(row);
-			String tmpValString = "";
-
-			if (attribute.isNominal()) {
-				tmpValString = instance.stringValue(columnNumber);
-			}
-
-			if (attribute.isNumeric()) {
-				double tmpVal = instances.attributeToDoubleArray(columnNumber)[row];
-				tmpValString = String.valueOf(tmpVal);
-			}
-
-			if (!uniqueValues.contains(tmpValString)) {
-				uniqueValues.add(tmpValString);
-			}
-		}
-
-		double uniqueRatio = (double) uniqueValues.size() / (double) instancesNumber;
-
-		if (Double.isNaN(uniqueRatio)) {
-			uniqueRatio = 0;
-		}
-
-		return uniqueRatio;
+		return GetColumnProfile(instances, columnNumber).GetUniqueValueRatio();
 	}
 
 	// Same digital number
 	public int GetSameDigitalNumber(Instances instances, int columnNumber) {
-
-		int dataType = this.GetDataType(instances, columnNumber);
-
-		if (dataType == -1) // must be integer
-		{
-			return -1;
-		}
-
-		if (dataType == 0) {
-			return 0;
-		}
-
-		int instancesNumber = instances.numInstances();
-		Attribute attribute = instances.attribute(columnNumber);
-
-		List<Integer> uniqueLength = new ArrayList<>();
-
-		for (int row = 0; row < instancesNumber; row++) {
-			Instance instance = instances.get(row);
-
-			String tmpValString = "";
-
-			if (attribute.isNominal()) {
-				tmpValString = instance.stringValue(columnNumber);
-			}
-
-			if (attribute.isNumeric()) {
-				double tmpVal = instances.attributeToDoubleArray(columnNumber)[row];
-				tmpValString = String.valueOf(tmpVal);
-			}
-
-			int dataLength = tmpValString.length();
-
-			if (!uniqueLength.contains(dataLength)) {
-				uniqueLength.add(dataLength);
-			}
-
-		}
-
-		if (uniqueLength.size() == 1) {
-			return 1;
-		}
-
-		return 0;
+		return GetColumnProfile(instances, columnNumber).GetSameDigitalNumber();
 	}
 
 	// 2 - Statistical Features ///////////////////////////////////////
 
 	// Average/Minimum/Maximum/Median/Upper quartile/Lower quartile values
 	public StatisticValuesModel GetAvgMinMaxMedianUpquarLowquar(Instances instances, int columnNumber) {
-		Attribute attribute = instances.attribute(columnNumber);
-
-		StatisticValuesModel statisticValues = new StatisticValuesModel();
-		statisticValues.Average = -1;
-		statisticValues.Minimum = -1;
-		statisticValues.Maximum = -1;
-		statisticValues.Median = -1;
-		statisticValues.UpperQuartile = -1;
-		statisticValues.LowerQuartile = -1;
-
-		if (!(attribute.isNumeric() || attribute.isNominal())) {
-			return statisticValues;
-		}
-
-		int instancesNumber = instances.numInstances();
-
-		List<Double> readedValues = new ArrayList<Double>();
-
-		// column with all numbers
-		if (attribute.isNumeric()) {
-			for (int row = 0; row < instancesNumber; row++) {
-				double tmpVal = instances.attributeToDoubleArray(columnNumber)[row];
-
-				readedValues.add(tmpVal);
-			}
-		}
-
-		// column that can have null, unknown, etc.
-		if (attribute.isNominal()) {
-			for (int row = 0; row < instancesNumber; row++) {
-				Instance instance = instances.get(row);
-				String tmpValString = instance.stringValue(columnNumber);
-				double tmpVal = 0.0;
-
-				try {
-					tmpVal = Double.parseDouble(tmpValString);
-					readedValues.add(tmpVal);
-				} catch (Exception ex) {
-					// Do nothing
-				}
-			}
-		}
-
-		try {
-
-			if (readedValues.size() > 0) {
-				statisticValues.Average = readedValues.stream().mapToDouble(a -> a).average().getAsDouble();
-				statisticValues.Minimum = readedValues.stream().mapToDouble(a -> a).min().getAsDouble();
-				statisticValues.Maximum = readedValues.stream().mapToDouble(a -> a).max().getAsDouble();
-
-				Collections.sort(readedValues);
-
-				double middle = readedValues.size() / 2;
-				if (readedValues.size() % 2 == 0) {
-					middle = (readedValues.get(readedValues.size() / 2) + readedValues.get(readedValues.size() / 2 - 1))
-							/ 2;
-				} else {
-					middle = readedValues.get(readedValues.size() / 2);
-				}
-
-				statisticValues.Median = middle;
-
-				double quartilies[] = new double[3];
-
-				for (int quartileType = 1; quartileType < 4; quartileType++) {
-					float length = readedValues.size() - 1;
-					double quartile;
-					float newArraySize = (length * ((float) (quartileType) * 25 / 100)) - 1;
-
-					if (newArraySize % 1 == 0) {
-						quartile = readedValues.get((int) (newArraySize));
-					} else {
-						int newArraySize1 = (int) (newArraySize);
-						quartile = (readedValues.get(newArraySize1) + readedValues.get(newArraySize1 + 1)) / 2;
-					}
-					quartilies[quartileType - 1] = quartile;
-				}
-
-				statisticValues.LowerQuartile = quartilies[0];
-				statisticValues.UpperQuartile = quartilies[2];
-
-				if (Double.isNaN(statisticValues.Average)) {
-					statisticValues.Average = 0;
-				}
-
-				if (Double.isNaN(statisticValues.Minimum)) {
-					statisticValues.Minimum = 0;
-				}
-
-				if (Double.isNaN(statisticValues.Maximum)) {
-					statisticValues.Maximum = 0;
-				}
-
-				if (Double.isNaN(statisticValues.Median)) {
-					statisticValues.Median = 0;
-				}
-
-				if (Double.isNaN(statisticValues.LowerQuartile)) {
-					statisticValues.LowerQuartile = 0;
-				}
-
-				if (Double.isNaN(statisticValues.UpperQuartile)) {
-					statisticValues.UpperQuartile = 0;
-				}
-
-			}
-		} catch (Exception e) {
-			return new StatisticValuesModel();
-		}
-
-		return statisticValues;
+		return GetColumnProfile(instances, columnNumber).GetAvgMinMaxMedianUpquarLowquar();
 	}
 
 	// Coefficient of variation
 	public double GetCoefficientOfVariation(Instances instances, int columnNumber) {
-		Attribute attribute = instances.attribute(columnNumber);
-
-		if (!(attribute.isNumeric() || attribute.isNominal())) {
-			return -1;
-		}
-
-		int instancesNumber = instances.numInstances();
-
-		List<Double> readedValues = new ArrayList<Double>();
-
-		// column with all numbers
-		if (attribute.isNumeric()) {
-			for (int row = 0; row < instancesNumber; row++) {
-				double tmpVal = instances.attributeToDoubleArray(columnNumber)[row];
-
-				readedValues.add(tmpVal);
-			}
-		}
-
-		// column that can have null, unknown, etc.
-		if (attribute.isNominal()) {
-			for (int row = 0; row < instancesNumber; row++) {
-				Instance instance = instances.get(row);
-				String tmpValString = instance.stringValue(columnNumber);
-				double tmpVal = 0.0;
-
-				try {
-					tmpVal = Double.parseDouble(tmpValString);
-					readedValues.add(tmpVal);
-				} catch (Exception ex) {
-					// Do nothing
-				}
-			}
-		}
-
-		double average = 0.0;
-		if (readedValues.size() > 0) {
-			average = readedValues.stream().mapToDouble(a -> a).average().getAsDouble();
-		}
-
-		double stdev = -1;
-		double sum = 0;
-
-		if (readedValues.size() > 0) {
-			for (int i = 0; i < readedValues.size(); i++) {
-				sum = sum + (readedValues.get(i) - average) * (readedValues.get(i) - average);
-			}
-			double squaredDiffMean = (sum) / (readedValues.size());
-			stdev = (Math.sqrt(squaredDiffMean));
-
-			if (Math.abs(average) < 2 * Double.MIN_VALUE) {
-				return stdev;
-			}
-
-			stdev = stdev / average;
-		}
-
-		if (Double.isNaN(stdev)) {
-			stdev = 0;
-		}
-
-		return stdev;
+		return GetColumnProfile(instances, columnNumber).GetCoefficientOfVariation();
 	}
 
 	// Range ratio
 	public double GetRangeRatio(Instances instances, int columnNumber) {
-		Attribute attribute = instances.attribute(columnNumber);
-
-		if (!(attribute.isNumeric() || attribute.isNominal())) {
-			return -1; // no numeric or nominal column
-		}
-
-		int instancesNumber = instances.numInstances();
-
-		List<Double> uniqueValues = new ArrayList<>();
-
-		for (int row = 0; row < instancesNumber; row++) {
-			Instance instance = instances.get(row);
-			double tmpVal = 0.0;
-
-			if (attribute.isNominal()) {
-				String tmpValString = instance.stringValue(columnNumber);
-
-				try {
-					tmpVal = Double.parseDouble(tmpValString);
-				} catch (Exception ex) {
-					continue;
-				}
-			}
-
-			if (attribute.isNumeric()) {
-				tmpVal = instances.attributeToDoubleArray(columnNumber)[row];
-			}
-
-			if (!uniqueValues.contains(tmpVal)) {
-				uniqueValues.add(tmpVal);
-			}
-		}
-
-		double rangeRatio = -1;
-
-		if (uniqueValues.size() > 0) {
-			double minimum = uniqueValues.stream().mapToDouble(a -> a).min().getAsDouble();
-			double maximum = uniqueValues.stream().mapToDouble(a -> a).max().getAsDouble();
-
-			rangeRatio = (maximum - minimum) / uniqueValues.size();
-		}
-
-		if (Double.isNaN(rangeRatio)) {
-			rangeRatio = 0;
-		}
-
-		return rangeRatio;
+		return GetColumnProfile(instances, columnNumber).GetRangeRatio();
 	}
 
 	// 3 - Inter-Column Features ///////////////////////////////////////
@@ -525,54 +96,86 @@ public class FeatureExtractionManager {
 
 	// Numerical column ratio
 	public double GetNumericalColumnRatio(Instances instances) {
-		int attributesNumber = instances.numAttributes();
-		int columnsWithNumbers = 0;
-
-		for (int i = 0; i < attributesNumber; i++) {
-			if (this.GetDataType(instances, i) != -1) {
-				columnsWithNumbers++;
-			}
-		}
-
-		double numericalColumnRatio = (double) columnsWithNumbers / (double) attributesNumber;
-
-		if (Double.isNaN(numericalColumnRatio)) {
-			numericalColumnRatio = 0;
-		}
+		return GetColumnTypeIndex(instances).GetNumericalColumnRatio();
+	}
 
-		return numericalColumnRatio;
+	// Numerical neighbor, the number of columns comes from the dataset
+	public double GetNumericalNeighbor(Instances instances, int columnNumber) {
+		return GetNumericalNeighbor(GetColumnTypeIndex(instances), columnNumber);
 	}
 
-	// Numerical neighbor
-	public double GetNumericalNeighbor(Instances instances, int maxColumns, int columnNumber) {
+	public double GetNumericalNeighbor(ColumnTypeIndex typeIndex, int columnNumber) {
+		int maxColumns = typeIndex.GetColumnsNumber();
 
-		if (this.GetDataType(instances, columnNumber) == -1) {
+		if (!typeIndex.IsNumerical(columnNumber)) {
 			return 0;
 		}
 
-		if (columnNumber == 0 && this.GetDataType(instances, columnNumber + 1) != -1) {
+		boolean previousNumerical = typeIndex.IsNumerical(columnNumber - 1);
+		boolean nextNumerical = typeIndex.IsNumerical(columnNumber + 1);
+
+		if (columnNumber == 0 && nextNumerical) {
 			return 1;
 		}
 
-		if (columnNumber == (maxColumns - 1) && this.GetDataType(instances, columnNumber - 1) != -1) {
+		if (columnNumber == (maxColumns - 1) && previousNumerical) {
 			return 1;
 		}
 
-		if (columnNumber != 0 && columnNumber != (maxColumns - 1) && this.GetDataType(instances, columnNumber + 1) != -1
-				&& this.GetDataType(instances, columnNumber - 1) != -1) {
+		if (columnNumber != 0 && columnNumber != (maxColumns - 1) && nextNumerical && previousNumerical) {
 			return 1;
 		}
 
-		if (columnNumber != 0 && columnNumber != (maxColumns - 1) && this.GetDataType(instances, columnNumber + 1) != -1
-				&& this.GetDataType(instances, columnNumber - 1) == -1) {
+		if (columnNumber != 0 && columnNumber != (maxColumns - 1) && nextNumerical && !previousNumerical) {
 			return 0.5;
 		}
 
-		if (columnNumber != 0 && columnNumber != (maxColumns - 1) && this.GetDataType(instances, columnNumber + 1) == -1
-				&& this.GetDataType(instances, columnNumber - 1) != -1) {
+		if (columnNumber != 0 && columnNumber != (maxColumns - 1) && !nextNumerical && previousNumerical) {
 			return 0.5;
 		}
 
 		return 0;
 	}
+
+	// data types of all columns, used by the inter-column features
+	public ColumnTypeIndex GetColumnTypeIndex(Instances instances) {
+		int attributesNumber = instances.numAttributes();
+		int[] dataTypes = new int[attributesNumber];
+
+		for (int i = 0; i < attributesNumber; i++) {
+			dataTypes[i] = this.GetDataType(instances, i);
+		}
+
+		return new ColumnTypeIndex(dataTypes);
+	}
+
+	public ColumnTypeIndex GetColumnTypeIndex(ColumnProfile[] profiles) {
+		int[] dataTypes = new int[profiles.length];
+
+		for (int i = 0; i < profiles.length; i++) {
+			dataTypes[i] = profiles[i].GetDataType();
+		}
+
+		return new ColumnTypeIndex(dataTypes);
+	}
+
+	// features of a streamed dataset, computed without Instances
+	public Features[] GetFeatures(StreamedDatasetModel streamedDataset) {
+		ColumnTypeIndex typeIndex = GetColumnTypeIndex(streamedDataset.Profiles);
+		Features[] features = new Features[streamedDataset.Profiles.length];
+
+		// profiles of a sample estimate the features of all rows of the file
+		if (streamedDataset.SampleRowsNumber < streamedDataset.RowsNumber) {
+			for (ColumnProfile profile : streamedDataset.Profiles) {
+				profile.SetPopulationRows(streamedDataset.RowsNumber);
+			}
+		}
+
+		for (int columnNr = 0; columnNr < features.length; columnNr++) {
+			features[columnNr] = new Features(streamedDataset.Profiles[columnNr], this, typeIndex,
+					streamedDataset.ColumnNames.get(columnNr), columnNr);
+		}
+
+		return features;
+	}
 }
@@ -0,0 +1,364 @@
+package tpdia_project;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import tpdia_project.Models.FileFingerprintModel;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+// features table in a binary columnar file, features.csv is its export for other tools
+// the store is read while the CSV file is the one exported with it, an edited CSV file is read instead
+// format: header with the CSV fingerprint, attributes with their label dictionaries,
+// then every column as doubles (numeric) or label indexes (nominal and string), each column aligned to 8 bytes
+public class FeatureStore {
+	private static final int MAGIC = 0x46454154; // FEAT
+	private static final int VERSION = 1;
+
+	private static final byte NUMERIC = 0;
+	private static final byte NOMINAL = 1;
+	private static final byte STRING = 2;
+
+	private final CSVManager csvManager = new CSVManager();
+	private final String storeFileName;
+	private final String csvFileName;
+	private final String separator;
+
+	public FeatureStore(String storeFileName, String csvFileName, String separator) {
+		this.storeFileName = storeFileName;
+		this.csvFileName = csvFileName;
+		this.separator = separator;
+	}
+
+	public Instances Load() {
+		return Load(System.out);
+	}
+
+	// messages about a store or a CSV file that could not be read go to the log
+	public Instances Load(PrintStream log) {
+		Instances main = loadStore(log);
+
+		if (main != null) {
+			return main;
+		}
+
+		return new CSVManager(log).GetDataSet(csvFileName, separator);
+	}
+
+	// the CSV file is written only when exportCSV is set, the store always
+	public void Save(Instances main, boolean exportCSV) {
+		if (exportCSV) {
+			ExportCSV(main);
+		}
+
+		for (int i = 0; i < main.numAttributes(); i++) {
+			if (getType(main.attribute(i)) < 0) {
+				System.out.println("Could not save the feature store " + storeFileName + ": the column "
+						+ main.attribute(i).name() + " has the unsupported type "
+						+ Attribute.typeToString(main.attribute(i)));
+				return;
+			}
+		}
+
+		Path storePath = Paths.get(storeFileName).toAbsolutePath();
+
+		try {
+			// the store remembers the CSV file as it is now, also when it was not exported
+			FileFingerprintModel fingerprint = Files.exists(Paths.get(csvFileName))
+					? csvManager.GetFileFingerprint(csvFileName, true)
+					: new FileFingerprintModel();
+
+			Path temporaryPath = Files.createTempFile(storePath.getParent(), storePath.getFileName().toString(), ".tmp");
+
+			try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE)) {
+				writeStore(channel, main, fingerprint);
+			}
+
+			Files.move(temporaryPath, storePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			System.out.println("Could not save the feature store " + storeFileName + ": " + e.getMessage());
+		}
+	}
+
+	public void ExportCSV(Instances dataSet) {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(csvFileName))) {
+			int coulmnsCount = dataSet.numAttributes();
+
+			for (int i = 0; i < coulmnsCount; ++i) {
+				writer.write(dataSet.attribute(i).name());
+				writer.write(i < coulmnsCount - 1 ? separator : "\n");
+			}
+
+			for (Instance row : dataSet) {
+				for (int j = 0; j < coulmnsCount; ++j) {
+					if (dataSet.attribute(j).isNumeric()) {
+						writer.write(Double.toString(row.value(j)));
+					} else {
+						writer.write(row.stringValue(j));
+					}
+
+					writer.write(j < coulmnsCount - 1 ? separator : "\n");
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Could not export " + csvFileName + ": " + e.getMessage());
+		}
+	}
+
+	// returns null when there is no store or the CSV file was changed after it
+	private Instances loadStore(PrintStream log) {
+		Path storePath = Paths.get(storeFileName);
+
+		if (!Files.exists(storePath)) {
+			return null;
+		}
+
+		// the store is read into memory, not mapped: a mapped file cannot be replaced by Save on Windows
+		// until the mapping is garbage collected
+		try (FileChannel channel = FileChannel.open(storePath, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("the store has more than 2 GB");
+			}
+
+			ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+			readFully(channel, buffer);
+			buffer.flip();
+
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return null;
+			}
+
+			long size = buffer.getLong();
+			long modifiedTime = buffer.getLong();
+			String hash = readString(buffer);
+
+			if (Files.exists(Paths.get(csvFileName))) {
+				FileFingerprintModel fingerprint = csvManager.GetFileFingerprint(csvFileName, false);
+
+				if (fingerprint.Size != size) {
+					return null;
+				}
+
+				// a touched CSV file with the same content still belongs to the store
+				if (fingerprint.ModifiedTime != modifiedTime && !csvManager.GetFileHash(csvFileName).equals(hash)) {
+					return null;
+				}
+			}
+
+			return readTable(buffer);
+		} catch (IOException | RuntimeException e) {
+			log.println("Could not read the feature store " + storeFileName + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private static void writeStore(FileChannel channel, Instances main, FileFingerprintModel fingerprint)
+			throws IOException {
+		int attributesNumber = main.numAttributes();
+		int rowsNumber = main.numInstances();
+
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		DataOutputStream header = new DataOutputStream(headerBytes);
+
+		header.writeInt(MAGIC);
+		header.writeInt(VERSION);
+		header.writeLong(fingerprint.Size);
+		header.writeLong(fingerprint.ModifiedTime);
+		writeString(header, fingerprint.Hash);
+
+		writeString(header, main.relationName());
+		header.writeInt(attributesNumber);
+		header.writeInt(rowsNumber);
+
+		for (int i = 0; i < attributesNumber; i++) {
+			Attribute attribute = main.attribute(i);
+			byte type = getType(attribute);
+
+			writeString(header, attribute.name());
+			header.writeByte(type);
+
+			if (type != NUMERIC) {
+				header.writeInt(attribute.numValues());
+
+				for (int label = 0; label < attribute.numValues(); label++) {
+					writeString(header, attribute.value(label));
+				}
+			}
+		}
+
+		header.flush();
+		writeFully(channel, padded(ByteBuffer.wrap(headerBytes.toByteArray())));
+
+		// numbers are stored as doubles, labels as their indexes with -1 for missing values
+		for (int i = 0; i < attributesNumber; i++) {
+			double[] column = main.attributeToDoubleArray(i);
+			ByteBuffer columnBytes;
+
+			if (getType(main.attribute(i)) == NUMERIC) {
+				columnBytes = ByteBuffer.allocate(rowsNumber * Double.BYTES);
+				columnBytes.asDoubleBuffer().put(column);
+			} else {
+				int[] labels = new int[rowsNumber];
+
+				for (int row = 0; row < rowsNumber; row++) {
+					labels[row] = Double.isNaN(column[row]) ? -1 : (int) column[row];
+				}
+
+				columnBytes = ByteBuffer.allocate(rowsNumber * Integer.BYTES);
+				columnBytes.asIntBuffer().put(labels);
+			}
+
+			writeFully(channel, padded(columnBytes));
+		}
+	}
+
+	private static Instances readTable(ByteBuffer buffer) {
+		String relationName = readString(buffer);
+		int attributesNumber = buffer.getInt();
+		int rowsNumber = buffer.getInt();
+
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>(attributesNumber);
+		byte[] types = new byte[attributesNumber];
+
+		for (int i = 0; i < attributesNumber; i++) {
+			String name = readString(buffer);
+			types[i] = buffer.get();
+
+			if (types[i] == NUMERIC) {
+				attributes.add(new Attribute(name));
+				continue;
+			}
+
+			int labelsNumber = buffer.getInt();
+			List<String> labels = new ArrayList<String>(labelsNumber);
+
+			for (int label = 0; label < labelsNumber; label++) {
+				labels.add(readString(buffer));
+			}
+
+			if (types[i] == NOMINAL) {
+				attributes.add(new Attribute(name, labels));
+			} else {
+				Attribute attribute = new Attribute(name, (List<String>) null);
+
+				for (String label : labels) {
+					attribute.addStringValue(label);
+				}
+
+				attributes.add(attribute);
+			}
+		}
+
+		skipPadding(buffer);
+
+		double[][] rows = new double[rowsNumber][attributesNumber];
+		double[] numbers = new double[rowsNumber];
+		int[] labels = new int[rowsNumber];
+
+		for (int i = 0; i < attributesNumber; i++) {
+			if (types[i] == NUMERIC) {
+				buffer.asDoubleBuffer().get(numbers);
+				buffer.position(buffer.position() + rowsNumber * Double.BYTES);
+
+				for (int row = 0; row < rowsNumber; row++) {
+					rows[row][i] = numbers[row];
+				}
+			} else {
+				buffer.asIntBuffer().get(labels);
+				buffer.position(buffer.position() + rowsNumber * Integer.BYTES);
+
+				for (int row = 0; row < rowsNumber; row++) {
+					rows[row][i] = labels[row] < 0 ? Double.NaN : labels[row];
+				}
+			}
+
+			skipPadding(buffer);
+		}
+
+		Instances main = new Instances(relationName, attributes, rowsNumber);
+
+		for (int row = 0; row < rowsNumber; row++) {
+			main.add(new DenseInstance(1.0, rows[row]));
+		}
+
+		return main;
+	}
+
+	private static byte getType(Attribute attribute) {
+		if (attribute.isNominal()) {
+			return NOMINAL;
+		}
+
+		if (attribute.isString()) {
+			return STRING;
+		}
+
+		if (attribute.type() == Attribute.NUMERIC) {
+			return NUMERIC;
+		}
+
+		return -1;
+	}
+
+	// columns start at multiples of 8 bytes, so they can be read as typed buffers
+	private static ByteBuffer padded(ByteBuffer bytes) {
+		int padding = (8 - bytes.limit() % 8) % 8;
+
+		if (padding == 0) {
+			return bytes;
+		}
+
+		ByteBuffer result = ByteBuffer.allocate(bytes.limit() + padding);
+		result.put(bytes);
+		result.flip();
+		result.limit(result.capacity());
+		return result;
+	}
+
+	private static void skipPadding(ByteBuffer buffer) {
+		buffer.position((buffer.position() + 7) & ~7);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			if (channel.read(bytes) < 0) {
+				throw new EOFException("the store ends before " + bytes.capacity() + " bytes");
+			}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
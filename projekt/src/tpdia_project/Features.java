@@ -2,12 +2,16 @@ package tpdia_project;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
 
+import tpdia_project.Models.SampleErrorModel;
 import tpdia_project.Models.StatisticValuesModel;
 import tpdia_project.Models.ValueRatioModel;
 import weka.core.Instances;
 
 public class Features {
+	public static final int FEATURES_NUMBER = 17;
+
 	String columnName;
 	int columnNr;
 
@@ -29,67 +33,115 @@ public class Features {
 
 	boolean isFeature = false;
 
-	public Features(Instances dataset, String columnName, int columnNr) {
-		this.columnName = columnName;
-
-		FeatureExtractionManager extractionManager = new FeatureExtractionManager();
+	// bounds of the features when they were estimated from a sample of rows, null otherwise
+	SampleErrorModel sampleErrors;
 
-		int attributesNumber = dataset.numAttributes();
+	public Features(Instances dataset, FeatureExtractionManager extractionManager, ColumnTypeIndex typeIndex,
+			String columnName, int columnNr) {
+		// column is decoded once for all general and statistical features
+		this(extractionManager.GetColumnProfile(dataset, columnNr), extractionManager, typeIndex, columnName,
+				columnNr);
+	}
 
-		double numericalColumnRatio = extractionManager.GetNumericalColumnRatio(dataset);
+	public Features(ColumnProfile profile, FeatureExtractionManager extractionManager, ColumnTypeIndex typeIndex,
+			String columnName, int columnNr) {
+		this.columnName = columnName;
 
 		// ----- General Features
-		extractGeneralFeatures(dataset, extractionManager, columnNr);
+		extractGeneralFeatures(profile);
 
 		// ----- Statistical Features
-		extractStatisticalFeatures(dataset, extractionManager, columnNr);
+		extractStatisticalFeatures(profile);
 
 		// ----- Inter-Column Features
-		extractInterColumnFeatures(dataset, extractionManager, attributesNumber, numericalColumnRatio, columnNr);
+		extractInterColumnFeatures(extractionManager, typeIndex, columnNr);
 
-		// Results in console
-		Print();
+		sampleErrors = profile.GetSampleErrors();
 	}
 
-	private void extractGeneralFeatures(Instances dataset, FeatureExtractionManager extractionManager, int columnNr) {
-		dataType = extractionManager.GetDataType(dataset, columnNr);
-		positiveNegativeZeroValueRatio = extractionManager.GetPositiveNegativeZeroValueRatio(dataset, columnNr);
-		uniqueValueRatio = extractionManager.GetUniqueValueRatio(dataset, columnNr);
-		sameDigitalNumber = extractionManager.GetSameDigitalNumber(dataset, columnNr);
+	private void extractGeneralFeatures(ColumnProfile profile) {
+		dataType = profile.GetDataType();
+		positiveNegativeZeroValueRatio = profile.GetPositiveNegativeZeroValueRatio();
+		uniqueValueRatio = profile.GetUniqueValueRatio();
+		sameDigitalNumber = profile.GetSameDigitalNumber();
 	}
 
-	private void extractStatisticalFeatures(Instances dataset, FeatureExtractionManager extractionManager,
-			int columnNr) {
-		statisticValuesModel = extractionManager.GetAvgMinMaxMedianUpquarLowquar(dataset, columnNr);
-		coefficientOfVariation = extractionManager.GetCoefficientOfVariation(dataset, columnNr);
-		rangeRatio = extractionManager.GetRangeRatio(dataset, columnNr);
+	private void extractStatisticalFeatures(ColumnProfile profile) {
+		statisticValuesModel = profile.GetAvgMinMaxMedianUpquarLowquar();
+		coefficientOfVariation = profile.GetCoefficientOfVariation();
+		rangeRatio = profile.GetRangeRatio();
 	}
 
-	private void extractInterColumnFeatures(Instances dataset, FeatureExtractionManager extractionManager,
-			int attributesNumber, double numericalColumnRatio, int columnNr) {
-		locationRatio = extractionManager.GetLocationRatio(attributesNumber, columnNr);
-		numericalColumnRatioTmp = numericalColumnRatio;
-		numericalNeighbor = extractionManager.GetNumericalNeighbor(dataset, attributesNumber, columnNr);
+	private void extractInterColumnFeatures(FeatureExtractionManager extractionManager, ColumnTypeIndex typeIndex,
+			int columnNr) {
+		locationRatio = extractionManager.GetLocationRatio(typeIndex.GetColumnsNumber(), columnNr);
+		numericalColumnRatioTmp = typeIndex.GetNumericalColumnRatio();
+		numericalNeighbor = extractionManager.GetNumericalNeighbor(typeIndex, columnNr);
 	}
 
 	public void Print() {
-		System.out.println("Data Type: " + dataType);
-		System.out.println("Positive value ratio: " + positiveNegativeZeroValueRatio.PositiveValueRatio);
-		System.out.println("Negative value ratio: " + positiveNegativeZeroValueRatio.NegativeValueRatio);
-		System.out.println("Zero value ratio: " + positiveNegativeZeroValueRatio.ZeroValueRatio);
-		System.out.println("Unique value ratio: " + uniqueValueRatio);
-		System.out.println("Same digital number: " + sameDigitalNumber);
-		System.out.println("Average: " + statisticValuesModel.Average);
-		System.out.println("Minimum: " + statisticValuesModel.Minimum);
-		System.out.println("Maximum: " + statisticValuesModel.Maximum);
-		System.out.println("Median: " + statisticValuesModel.Median);
-		System.out.println("Upper quartile: " + statisticValuesModel.UpperQuartile);
-		System.out.println("Lower quartile: " + statisticValuesModel.LowerQuartile);
-		System.out.println("Coefficient Of Variation: " + coefficientOfVariation);
-		System.out.println("Range ratio: " + rangeRatio);
-		System.out.println("Location ratio: " + locationRatio);
-		System.out.println("Numerical column ratio: " + numericalColumnRatioTmp);
-		System.out.println("Numerical neighbor: " + numericalNeighbor);
+		Print(System.out);
+	}
+
+	public void Print(PrintStream out) {
+		out.println("Data Type: " + dataType);
+		out.println("Positive value ratio: " + positiveNegativeZeroValueRatio.PositiveValueRatio);
+		out.println("Negative value ratio: " + positiveNegativeZeroValueRatio.NegativeValueRatio);
+		out.println("Zero value ratio: " + positiveNegativeZeroValueRatio.ZeroValueRatio);
+		out.println("Unique value ratio: " + uniqueValueRatio);
+		out.println("Same digital number: " + sameDigitalNumber);
+		out.println("Average: " + statisticValuesModel.Average);
+		out.println("Minimum: " + statisticValuesModel.Minimum);
+		out.println("Maximum: " + statisticValuesModel.Maximum);
+		out.println("Median: " + statisticValuesModel.Median);
+		out.println("Upper quartile: " + statisticValuesModel.UpperQuartile);
+		out.println("Lower quartile: " + statisticValuesModel.LowerQuartile);
+		out.println("Coefficient Of Variation: " + coefficientOfVariation);
+		out.println("Range ratio: " + rangeRatio);
+		out.println("Location ratio: " + locationRatio);
+		out.println("Numerical column ratio: " + numericalColumnRatioTmp);
+		out.println("Numerical neighbor: " + numericalNeighbor);
+
+		if (sampleErrors != null) {
+			printSampleErrors(out);
+		}
+	}
+
+	private void printSampleErrors(PrintStream out) {
+		out.println("Estimated from " + sampleErrors.SampleRows + " of " + sampleErrors.TotalRows
+				+ " rows, 95% bounds:");
+		out.println("Positive value ratio: +/- " + sampleErrors.PositiveValueRatio);
+		out.println("Negative value ratio: +/- " + sampleErrors.NegativeValueRatio);
+		out.println("Zero value ratio: +/- " + sampleErrors.ZeroValueRatio);
+		out.println("Unique value ratio: " + sampleErrors.UniqueValueRatioLower + " - "
+				+ sampleErrors.UniqueValueRatioUpper);
+		out.println("Average: +/- " + sampleErrors.Average);
+		out.println("Median: " + sampleErrors.MedianLower + " - " + sampleErrors.MedianUpper);
+		out.println("Upper quartile: " + sampleErrors.UpperQuartileLower + " - " + sampleErrors.UpperQuartileUpper);
+		out.println("Lower quartile: " + sampleErrors.LowerQuartileLower + " - " + sampleErrors.LowerQuartileUpper);
+	}
+
+	// the features in the order of their columns in features.csv, from dataType to neighbour
+	void CopyValues(double[] values, int offset) {
+		values[offset] = dataType;
+		values[offset + 1] = positiveNegativeZeroValueRatio.PositiveValueRatio;
+		values[offset + 2] = positiveNegativeZeroValueRatio.NegativeValueRatio;
+		values[offset + 3] = positiveNegativeZeroValueRatio.ZeroValueRatio;
+		values[offset + 4] = uniqueValueRatio;
+		values[offset + 5] = sameDigitalNumber;
+
+		values[offset + 6] = statisticValuesModel.Average;
+		values[offset + 7] = statisticValuesModel.Minimum;
+		values[offset + 8] = statisticValuesModel.Maximum;
+		values[offset + 9] = statisticValuesModel.Median;
+		values[offset + 10] = statisticValuesModel.UpperQuartile;
+		values[offset + 11] = statisticValuesModel.LowerQuartile;
+		values[offset + 12] = coefficientOfVariation;
+		values[offset + 13] = rangeRatio;
+
+		values[offset + 14] = locationRatio;
+		values[offset + 15] = numericalColumnRatioTmp;
+		values[offset + 16] = numericalNeighbor;
 	}
 
 	void SaveToCSV(FileWriter writer) throws IOException {
@@ -0,0 +1,166 @@
+package tpdia_project;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import tpdia_project.Models.FileFingerprintModel;
+import tpdia_project.Models.ManifestEntryModel;
+import weka.core.Instance;
+import weka.core.Instances;
+
+// remembers which datasets already have their features in features.csv
+// a dataset is computed again when its file or its rows in features.csv have changed
+public class FeaturesManifest {
+	// must be increased when the features are computed differently, so all datasets are computed again
+	private static final String VERSION = "features-manifest 2";
+	private static final String SEPARATOR = "\t";
+
+	private final CSVManager csvManager = new CSVManager();
+	private final String fileName;
+	private final Map<String, ManifestEntryModel> entries = new LinkedHashMap<String, ManifestEntryModel>();
+
+	public FeaturesManifest(String fileName) {
+		this.fileName = fileName;
+	}
+
+	// a missing or outdated manifest is empty
+	public void Load() {
+		entries.clear();
+
+		if (!Files.exists(Paths.get(fileName))) {
+			return;
+		}
+
+		try (BufferedReader in = new BufferedReader(new FileReader(fileName, StandardCharsets.UTF_8))) {
+			if (!VERSION.equals(in.readLine())) {
+				return;
+			}
+
+			String line;
+			while ((line = in.readLine()) != null) {
+				String[] fields = line.split(SEPARATOR);
+
+				if (fields.length != 5) {
+					continue;
+				}
+
+				ManifestEntryModel entry = new ManifestEntryModel();
+				entry.DatasetPath = fields[0];
+				entry.Fingerprint.Size = Long.parseLong(fields[1]);
+				entry.Fingerprint.ModifiedTime = Long.parseLong(fields[2]);
+				entry.Fingerprint.Hash = fields[3];
+				entry.RowsHash = fields[4];
+
+				entries.put(entry.DatasetPath, entry);
+			}
+		} catch (IOException | NumberFormatException e) {
+			System.out.println("Could not read " + fileName + ", all datasets will be computed: " + e.getMessage());
+			entries.clear();
+		}
+	}
+
+	public void Save() {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, StandardCharsets.UTF_8))) {
+			writer.write(VERSION);
+			writer.write("\n");
+
+			for (ManifestEntryModel entry : entries.values()) {
+				writer.write(entry.DatasetPath + SEPARATOR + entry.Fingerprint.Size + SEPARATOR
+						+ entry.Fingerprint.ModifiedTime + SEPARATOR + entry.Fingerprint.Hash + SEPARATOR
+						+ entry.RowsHash);
+				writer.write("\n");
+			}
+		} catch (IOException e) {
+			System.out.println("Could not save " + fileName + ": " + e.getMessage());
+		}
+	}
+
+	// size and modification time are checked first, the content hash only when they differ
+	public boolean IsUpToDate(String datasetPath, String rowsHash) {
+		ManifestEntryModel entry = entries.get(datasetPath);
+
+		if (entry == null || !entry.RowsHash.equals(rowsHash)) {
+			return false;
+		}
+
+		try {
+			FileFingerprintModel fingerprint = csvManager.GetFileFingerprint(datasetPath, false);
+
+			if (fingerprint.Size != entry.Fingerprint.Size) {
+				return false;
+			}
+
+			if (fingerprint.ModifiedTime == entry.Fingerprint.ModifiedTime) {
+				return true;
+			}
+
+			if (!csvManager.GetFileHash(datasetPath).equals(entry.Fingerprint.Hash)) {
+				return false;
+			}
+
+			// same content, next time the modification time is enough
+			entry.Fingerprint.ModifiedTime = fingerprint.ModifiedTime;
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	public void Update(String datasetPath, String rowsHash) {
+		ManifestEntryModel entry = new ManifestEntryModel();
+		entry.DatasetPath = datasetPath;
+		entry.RowsHash = rowsHash;
+
+		try {
+			entry.Fingerprint = csvManager.GetFileFingerprint(datasetPath, true);
+		} catch (IOException e) {
+			entries.remove(datasetPath);
+			return;
+		}
+
+		entries.put(datasetPath, entry);
+	}
+
+	// hash of the rows as they are written to features.csv
+	public static String GetRowsHash(Instances main, List<Instance> rows) {
+		MessageDigest digest;
+
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		StringBuilder line = new StringBuilder();
+
+		for (Instance row : rows) {
+			line.setLength(0);
+
+			for (int j = 0; j < main.numAttributes(); ++j) {
+				if (main.attribute(j).isNumeric()) {
+					line.append(Double.toString(row.value(j)));
+				} else {
+					line.append(row.stringValue(j));
+				}
+
+				line.append(';');
+			}
+
+			line.append('\n');
+			digest.update(line.toString().getBytes(StandardCharsets.UTF_8));
+		}
+
+		return CSVManager.GetHexString(digest.digest());
+	}
+}
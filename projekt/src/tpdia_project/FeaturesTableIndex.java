@@ -0,0 +1,73 @@
+package tpdia_project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import tpdia_project.Models.DatasetInformationModel;
+import weka.core.Instance;
+import weka.core.Instances;
+
+// positions of the rows of features.csv by dataset file and column name, built once when the file is loaded
+public class FeaturesTableIndex {
+	public static final int DOMAIN_COLUMN = 0;
+	public static final int FILE_COLUMN = 1;
+	public static final int NAME_COLUMN = 2;
+
+	private final Instances main;
+
+	// files in the order of their first row
+	private final Map<String, DatasetInformationModel> datasets = new LinkedHashMap<String, DatasetInformationModel>();
+	private final Map<String, List<Integer>> fileRows = new HashMap<String, List<Integer>>();
+	private final Map<String, Map<String, List<Integer>>> columnRows = new HashMap<String, Map<String, List<Integer>>>();
+
+	public FeaturesTableIndex(Instances main) {
+		this.main = main;
+
+		for (int rowNr = 0; rowNr < main.numInstances(); rowNr++) {
+			Instance row = main.instance(rowNr);
+			String fileName = row.stringValue(FILE_COLUMN);
+			String columnName = row.stringValue(NAME_COLUMN);
+
+			if (!datasets.containsKey(fileName)) {
+				DatasetInformationModel datasetInfo = new DatasetInformationModel();
+				datasetInfo.DomainName = row.stringValue(DOMAIN_COLUMN);
+				datasetInfo.DatasetName = fileName;
+				datasets.put(fileName, datasetInfo);
+			}
+
+			fileRows.computeIfAbsent(fileName, key -> new ArrayList<Integer>()).add(rowNr);
+			columnRows.computeIfAbsent(fileName, key -> new HashMap<String, List<Integer>>())
+					.computeIfAbsent(columnName, key -> new ArrayList<Integer>()).add(rowNr);
+		}
+	}
+
+	// every dataset file once, also when its rows are not next to each other
+	public List<DatasetInformationModel> GetDatasets() {
+		return new ArrayList<DatasetInformationModel>(datasets.values());
+	}
+
+	// current rows of the file, rows replaced in the dataset are returned as they are now
+	public List<Instance> GetRows(String fileName) {
+		List<Instance> rows = new ArrayList<Instance>();
+
+		for (int rowNr : fileRows.getOrDefault(fileName, Collections.emptyList())) {
+			rows.add(main.instance(rowNr));
+		}
+
+		return rows;
+	}
+
+	public List<Integer> GetRowPositions(String fileName, String columnName) {
+		Map<String, List<Integer>> rows = columnRows.get(fileName);
+
+		if (rows == null) {
+			return Collections.emptyList();
+		}
+
+		return rows.getOrDefault(columnName, Collections.emptyList());
+	}
+}
@@ -0,0 +1,73 @@
+package tpdia_project;
+
+// approximate distinct counter, memory does not depend on the number of values
+public class HyperLogLog {
+	private final int precision;
+	private final byte[] registers;
+
+	// relativeError is the standard error of the estimate, 1.04 / sqrt(registers number)
+	public HyperLogLog(double relativeError) {
+		double registersNumber = Math.pow(1.04 / relativeError, 2);
+		int bits = (int) Math.ceil(Math.log(registersNumber) / Math.log(2));
+
+		precision = Math.max(4, Math.min(18, bits));
+		registers = new byte[1 << precision];
+	}
+
+	public void Add(double value) {
+		long hash = DoubleHashSet.Mix(Double.doubleToLongBits(value));
+
+		int register = (int) (hash >>> (64 - precision));
+		long rest = hash << precision;
+		int rank = Math.min(Long.numberOfLeadingZeros(rest), 64 - precision) + 1;
+
+		if (rank > registers[register]) {
+			registers[register] = (byte) rank;
+		}
+	}
+
+	// counts the values of another counter with the same relative error
+	public void Merge(HyperLogLog other) {
+		for (int register = 0; register < registers.length; register++) {
+			if (other.registers[register] > registers[register]) {
+				registers[register] = other.registers[register];
+			}
+		}
+	}
+
+	public long Count() {
+		int registersNumber = registers.length;
+		double sum = 0;
+		int zeroRegisters = 0;
+
+		for (byte rank : registers) {
+			sum += 1.0 / (1L << rank);
+
+			if (rank == 0) {
+				zeroRegisters++;
+			}
+		}
+
+		double estimate = getAlpha(registersNumber) * registersNumber * registersNumber / sum;
+
+		// linear counting is more accurate for small cardinalities
+		if (estimate <= 2.5 * registersNumber && zeroRegisters > 0) {
+			estimate = registersNumber * Math.log((double) registersNumber / zeroRegisters);
+		}
+
+		return Math.round(estimate);
+	}
+
+	private static double getAlpha(int registersNumber) {
+		switch (registersNumber) {
+		case 16:
+			return 0.673;
+		case 32:
+			return 0.697;
+		case 64:
+			return 0.709;
+		default:
+			return 0.7213 / (1.0 + 1.079 / registersNumber);
+		}
+	}
+}
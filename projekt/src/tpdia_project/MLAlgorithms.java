@@ -1,5 +1,7 @@
 package tpdia_project;
 
+import java.io.PrintStream;
+
 import weka.classifiers.Classifier;
 import weka.classifiers.Evaluation;
 import weka.classifiers.functions.SMO;
@@ -11,103 +13,181 @@ import weka.core.Instances;
 import weka.filters.unsupervised.attribute.NumericToNominal;
 
 public class MLAlgorithms {
+	// names of the algorithms in the order of their evaluation
+	public static final String[] ALGORITHMS = { "KStar", "KNN", "RandomForest", "SVM" };
+
+	private final PrintStream log;
+	private final ModelRegistry modelRegistry;
+
+	// weka's own cross-validation instead of the parallel one, to check that both print the same results
+	private final boolean serialCrossValidation;
+
+	public MLAlgorithms() {
+		this(System.out, null);
+	}
+
+	// results are printed to the log, so algorithms evaluated in parallel do not mix their lines
+	// trained models are kept in the registry, without a registry every model is trained
+	public MLAlgorithms(PrintStream log, ModelRegistry modelRegistry) {
+		this(log, modelRegistry, false);
+	}
+
+	public MLAlgorithms(PrintStream log, ModelRegistry modelRegistry, boolean serialCrossValidation) {
+		this.log = log;
+		this.modelRegistry = modelRegistry;
+		this.serialCrossValidation = serialCrossValidation;
+	}
+
+	public void Evaluate(String algorithmName, Instances trainingDataSet, Instances testingDataSet) throws Exception {
+		switch (algorithmName) {
+		case "KStar":
+			KStar(trainingDataSet, testingDataSet);
+			break;
+		case "KNN":
+			KNN(trainingDataSet, testingDataSet);
+			break;
+		case "RandomForest":
+			RandomForest(trainingDataSet, testingDataSet);
+			break;
+		case "SVM":
+			SVM(trainingDataSet, testingDataSet);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown algorithm: " + algorithmName);
+		}
+	}
+
+	// classifiers with the options of their evaluation
+	public static Classifier CreateClassifier(String algorithmName) throws Exception {
+		switch (algorithmName) {
+		case "KStar":
+			return new weka.classifiers.lazy.KStar();
+		case "KNN":
+			return new IBk(1);
+		case "RandomForest":
+			RandomForest forest = new RandomForest();
+			forest.setNumFeatures(10);
+			forest.setNumIterations(1);
+			return forest;
+		case "SVM":
+			SMO svm = new SMO();
+			svm.setKernel(new RBFKernel());
+			return svm;
+		default:
+			throw new IllegalArgumentException("Unknown algorithm: " + algorithmName);
+		}
+	}
+
+	// K-Star and SVM are trained on all columns converted to nominal values
+	public static Instances PrepareDataSet(String algorithmName, Instances dataset) throws Exception {
+		if (!algorithmName.equals("KStar") && !algorithmName.equals("SVM")) {
+			return dataset;
+		}
+
+		NumericToNominal numericToNominal = new NumericToNominal();
+		numericToNominal.setInputFormat(dataset);
+
+		return weka.filters.Filter.useFilter(dataset, numericToNominal);
+	}
 
 	public void KNN(Instances trainingDataSet, Instances testingDataSet) throws Exception {
-		Classifier ibk = new IBk(1);
-		ibk.buildClassifier(trainingDataSet);
+		Classifier ibk = CreateClassifier("KNN");
+		ibk = train("KNN", ibk, trainingDataSet);
 
 		Evaluation eval = new Evaluation(trainingDataSet);
 		eval.evaluateModel(ibk, testingDataSet);
 
-		System.out.println("** KNN Evaluation with Datasets **");
-		System.out.println(eval.toSummaryString());
-		System.out.print(" the expression for the input data as per alogorithm is ");
-		System.out.println(ibk);
+		log.println("** KNN Evaluation with Datasets **");
+		log.println(eval.toSummaryString());
+		log.print(" the expression for the input data as per alogorithm is ");
+		log.println(ibk);
 
 		ClassificationPrecision("k-Nearest Neighbor", ibk, testingDataSet);
 
-		eval.crossValidateModel(ibk, trainingDataSet, 10, new Random(1));
-		System.out.println("10-fold cross validation: " + Double.toString(eval.pctCorrect()));
-		System.out.println("-------------------------------------");
+		crossValidate(eval, ibk, trainingDataSet);
+		log.println("10-fold cross validation: " + Double.toString(eval.pctCorrect()));
+		log.println("-------------------------------------");
 	}
 
 	public void KStar(Instances trainingDataSet, Instances testingDataSet) throws Exception {
+		trainingDataSet = PrepareDataSet("KStar", trainingDataSet);
+		testingDataSet = PrepareDataSet("KStar", testingDataSet);
 
-		NumericToNominal numericToNominal = new NumericToNominal();
-
-		numericToNominal.setInputFormat(trainingDataSet);
-		trainingDataSet = weka.filters.Filter.useFilter(trainingDataSet, numericToNominal);
-
-		numericToNominal = new NumericToNominal();
-		numericToNominal.setInputFormat(testingDataSet);
-		testingDataSet = weka.filters.Filter.useFilter(testingDataSet, numericToNominal);
-
-		Classifier kstar = new weka.classifiers.lazy.KStar();
-		kstar.buildClassifier(trainingDataSet);
+		Classifier kstar = CreateClassifier("KStar");
+		kstar = train("KStar", kstar, trainingDataSet);
 
 		Evaluation eval = new Evaluation(trainingDataSet);
 		eval.evaluateModel(kstar, testingDataSet);
 
-		System.out.println("** K-Star Evaluation with Datasets **");
-		System.out.println(eval.toSummaryString());
-		System.out.print(" the expression for the input data as per alogorithm is ");
-		System.out.println(kstar);
+		log.println("** K-Star Evaluation with Datasets **");
+		log.println(eval.toSummaryString());
+		log.print(" the expression for the input data as per alogorithm is ");
+		log.println(kstar);
 
 		ClassificationPrecision("K-Star", kstar, testingDataSet);
 
-		eval.crossValidateModel(kstar, trainingDataSet, 10, new Random(1));
-		System.out.println("10-fold cross validation: " + Double.toString(eval.pctCorrect()));
-		System.out.println("-------------------------------------");
+		crossValidate(eval, kstar, trainingDataSet);
+		log.println("10-fold cross validation: " + Double.toString(eval.pctCorrect()));
+		log.println("-------------------------------------");
 	}
 
 	public void RandomForest(Instances trainingDataSet, Instances testingDataSet) throws Exception {
-		RandomForest forest = new RandomForest();
-
-		forest.setNumFeatures(10);
-		forest.setNumIterations(1);
-		forest.buildClassifier(trainingDataSet);
+		Classifier forest = CreateClassifier("RandomForest");
+		forest = train("RandomForest", forest, trainingDataSet);
 
 		Evaluation eval = new Evaluation(trainingDataSet);
 		eval.evaluateModel(forest, testingDataSet);
 
-		System.out.println("** Random Forest Evaluation with Datasets **");
-		System.out.println(eval.toSummaryString());
-		System.out.print(" the expression for the input data as per alogorithm is ");
-		System.out.println(forest);
+		log.println("** Random Forest Evaluation with Datasets **");
+		log.println(eval.toSummaryString());
+		log.print(" the expression for the input data as per alogorithm is ");
+		log.println(forest);
 
 		ClassificationPrecision("Random Forest", forest, testingDataSet);
 
-		eval.crossValidateModel(forest, trainingDataSet, 10, new Random(1));
-		System.out.println("10-fold cross validation: " + Double.toString(eval.pctCorrect()));
-		System.out.println("-------------------------------------");
+		crossValidate(eval, forest, trainingDataSet);
+		log.println("10-fold cross validation: " + Double.toString(eval.pctCorrect()));
+		log.println("-------------------------------------");
 	}
 
 	public void SVM(Instances trainingDataSet, Instances testingDataSet) throws Exception {
-		SMO svm = new SMO();
-		svm.setKernel(new RBFKernel());
-
-		NumericToNominal numericToNominal = new NumericToNominal();
+		Classifier svm = CreateClassifier("SVM");
 
-		numericToNominal.setInputFormat(trainingDataSet);
-		testingDataSet = weka.filters.Filter.useFilter(trainingDataSet, numericToNominal);
+		testingDataSet = PrepareDataSet("SVM", trainingDataSet);
+		trainingDataSet = PrepareDataSet("SVM", testingDataSet);
 
-		numericToNominal = new NumericToNominal();
-		numericToNominal.setInputFormat(testingDataSet);
-		trainingDataSet = weka.filters.Filter.useFilter(testingDataSet, numericToNominal);
-
-		svm.buildClassifier(trainingDataSet);
+		svm = train("SVM", svm, trainingDataSet);
 
 		Evaluation eval = new Evaluation(trainingDataSet);
 		eval.evaluateModel(svm, testingDataSet);
 
-		System.out.println("** SVM Evaluation with Datasets **");
-		System.out.println(eval.toSummaryString());
+		log.println("** SVM Evaluation with Datasets **");
+		log.println(eval.toSummaryString());
 
 		ClassificationPrecision("SVM", svm, testingDataSet);
 
-		eval.crossValidateModel(svm, trainingDataSet, 10, new Random(1));
-		System.out.println("10-fold cross validation: " + Double.toString(eval.pctCorrect()));
-		System.out.println("-------------------------------------");
+		crossValidate(eval, svm, trainingDataSet);
+		log.println("10-fold cross validation: " + Double.toString(eval.pctCorrect()));
+		log.println("-------------------------------------");
+	}
+
+	// 10 folds drawn with the seed 1
+	private void crossValidate(Evaluation eval, Classifier classifier, Instances trainingDataSet) throws Exception {
+		if (serialCrossValidation) {
+			eval.crossValidateModel(classifier, trainingDataSet, 10, new Random(1));
+		} else {
+			ParallelCrossValidation.CrossValidateModel(eval, classifier, trainingDataSet, 10, new Random(1));
+		}
+	}
+
+	private <T extends Classifier> T train(String algorithmName, T classifier, Instances trainingDataSet)
+			throws Exception {
+		if (modelRegistry == null) {
+			classifier.buildClassifier(trainingDataSet);
+			return classifier;
+		}
+
+		return modelRegistry.Train(algorithmName, classifier, trainingDataSet);
 	}
 
 	private void ClassificationPrecision(String algoName, Classifier classifier, Instances testingDataSet)
@@ -141,7 +221,7 @@ public class MLAlgorithms {
 			}
 		}
 
-		System.out.println(algoName + " classification precision: " + ((double) right / (double) sum));
+		log.println(algoName + " classification precision: " + ((double) right / (double) sum));
 
 		double R = 0;
 		double P = 0;
@@ -161,8 +241,8 @@ public class MLAlgorithms {
 			F = (2.0 * P * R) / (double) (P + R);
 		}
 
-		System.out.println("Recall: " + R + "%");
-		System.out.println("Precision: " + P + "%");
-		System.out.println("F-Measure: " + F + "%");
+		log.println("Recall: " + R + "%");
+		log.println("Precision: " + P + "%");
+		log.println("F-Measure: " + F + "%");
 	}
 }
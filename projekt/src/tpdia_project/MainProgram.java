@@ -1,31 +1,122 @@
 package tpdia_project;
 
 import java.beans.beancontext.BeanContextMembershipListener;
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.Random;
 import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
 
 import javax.xml.bind.annotation.adapters.CollapsedStringAdapter;
 
+import tpdia_project.Models.CommandLineModel;
+import tpdia_project.Models.DatasetFeaturesModel;
+import tpdia_project.Models.DatasetInformationModel;
+import tpdia_project.Models.ExtractionSettingsModel;
+import tpdia_project.Models.StreamedDatasetModel;
+import tpdia_project.Models.TableScoresModel;
+import weka.core.DenseInstance;
 import weka.core.Instance;
 import weka.core.Instances;
 
 public class MainProgram {
 	static CSVManager csvManager = new CSVManager();
 
+	// worker threads of the features pipeline, -Dworkers=N on the command line
+	static int workersNumber = Integer.getInteger("workers", Runtime.getRuntime().availableProcessors());
+
+	// -Dstreaming=true profiles files while they are read, without weka Instances
+	static boolean streamingMode = Boolean.getBoolean("streaming");
+
+	// -Dcache=true keeps preprocessed datasets in the cache directory, so later runs do not parse the CSV files
+	static NormalizedDatasetCache normalizedCache = Boolean.getBoolean("cache") ? new NormalizedDatasetCache("cache")
+			: null;
+
+	// -Drebuild=true computes the features of all datasets, not only of the changed ones
+	static boolean rebuildFeatures = Boolean.getBoolean("rebuild");
+
+	// the features table is kept in features.bin, -Dcsvexport=false does not write features.csv after every run
+	static FeatureStore featureStore = new FeatureStore("features.bin", "features.csv", ";");
+	static boolean exportFeaturesCSV = Boolean.parseBoolean(System.getProperty("csvexport", "true"));
+
+	// features estimated from a sample of rows are only exported, never stored with the features table
+	static final String ESTIMATED_FEATURES_CSV = "features.sampled.csv";
+	static FeatureStore estimatedFeatureStore = new FeatureStore("features.sampled.bin", ESTIMATED_FEATURES_CSV, ";");
+
+	// -Dsamplerows=N or -Dsamplefraction=F estimate the features of streamed files from a sample of their rows
+	// -Dlocalenumbers=true reads labels like "1 234,5" as numbers
+	// -Dapproximatedistinct=true and -Ddistincterror=E count distinct numbers of large columns with HyperLogLog
+	// -Dapproximatequantiles=true (on in streaming mode) and -Dquantileerror=E describe large columns by a sketch
+	static ExtractionSettingsModel extractionSettings = GetExtractionSettings();
+
+	// trained classifiers are kept in the models directory, -Dretrain=true trains them again
+	static ModelRegistry modelRegistry = new ModelRegistry("models", Boolean.getBoolean("retrain"));
+
+	// trained on the first detection of measures, then kept for the next ones
+	static MeasureDetector measureDetector = null;
+
+	// -Dserver=PORT starts the local measure detection service instead of the menu
+	static int serverPort = Integer.getInteger("server", 0);
+
+	// datasets are read from the domain directories of the root, --root and --domains of the extract command
+	static String datasetsRoot = "datasets";
+	static Set<String> selectedDomains = null;
+
+	// algorithms of the [s] key and of the evaluate command, --algorithms
+	static List<String> selectedAlgorithms = Arrays.asList(MLAlgorithms.ALGORITHMS);
+
+	// evaluate --check-serial compares the results with weka's serial cross-validation of the same seed
+	static boolean checkSerialCrossValidation = false;
+
+	// datasets with at least this many cells have their columns profiled in parallel
+	static final long PARALLEL_COLUMNS_CELLS = 1000000;
+
+	static final int EXIT_SUCCESS = 0;
+	static final int EXIT_FAILURE = 1;
+	static final int EXIT_USAGE = 2;
+	static final int EXIT_UNREADABLE_FILES = 3;
+
 	public static void main(String[] args) {
 
+		if (args.length > 0) {
+			System.exit(RunCommand(args));
+		}
+
+		if (serverPort > 0) {
+			try {
+				StartServer();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+
+			return;
+		}
+
 		boolean exitProgram = false;
 		String pressedKey = "";
 
+		// one scanner reads all keys, the program ends with its input
+		Scanner in = new Scanner(System.in);
+
 		do {
 			PrintHelp();
 
-			Scanner in = new Scanner(System.in);
+			if (!in.hasNextLine()) {
+				break;
+			}
+
 			pressedKey = in.nextLine();
 
 			if (pressedKey.equals("a") || pressedKey.equals("A")) {
@@ -40,6 +131,19 @@ public class MainProgram {
 				}
 			}
 
+			if (pressedKey.equals("d") || pressedKey.equals("D")) {
+				System.out.println("Enter a CSV file or a directory of CSV files:");
+
+				try {
+					if (in.hasNextLine()) {
+						DetectMeasures(Arrays.asList(in.nextLine()), new TableScoresWriter("text"), System.out,
+								System.out);
+					}
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+
 			if (pressedKey.equals("q") || pressedKey.equals("Q")) {
 				exitProgram = true;
 			}
@@ -50,14 +154,226 @@ public class MainProgram {
 		return;
 	}
 
+	// commands of the command line, returns the exit code
+	private static int RunCommand(String[] args) {
+		CommandLineModel commandLine;
+		TableScoresWriter scoresWriter = null;
+
+		try {
+			commandLine = CommandLineParser.Parse(args);
+			ApplyOptions(commandLine);
+
+			if (commandLine.Command.equals("score")) {
+				if (commandLine.Arguments.isEmpty()) {
+					throw new IllegalArgumentException("No CSV files or directories to score");
+				}
+
+				scoresWriter = new TableScoresWriter(CommandLineParser.GetString(commandLine, "format", "text"));
+			} else if (!commandLine.Arguments.isEmpty()) {
+				throw new IllegalArgumentException("Unexpected arguments: " + commandLine.Arguments);
+			}
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			CommandLineParser.PrintUsage();
+			return EXIT_USAGE;
+		}
+
+		try {
+			switch (commandLine.Command) {
+			case "extract":
+				PrepareFeaturesCSV();
+				return EXIT_SUCCESS;
+			case "train":
+				TrainMeasureDetector();
+				return EXIT_SUCCESS;
+			case "evaluate":
+				DetectFeatures();
+				return !checkSerialCrossValidation || CheckCrossValidation() ? EXIT_SUCCESS : EXIT_FAILURE;
+			case "score":
+				return ScoreFiles(commandLine, scoresWriter);
+			case "serve":
+				StartServer();
+
+				// the service runs until the process is stopped
+				Thread.currentThread().join();
+				return EXIT_SUCCESS;
+			default:
+				CommandLineParser.PrintUsage();
+				return EXIT_SUCCESS;
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			return EXIT_FAILURE;
+		}
+	}
+
+	// options of the command line replace the -D settings
+	private static void ApplyOptions(CommandLineModel commandLine) {
+		workersNumber = CommandLineParser.GetInt(commandLine, "workers", workersNumber);
+
+		if (workersNumber < 1) {
+			throw new IllegalArgumentException("Option --workers needs at least 1 worker");
+		}
+
+		datasetsRoot = CommandLineParser.GetString(commandLine, "root", datasetsRoot);
+
+		List<String> domains = CommandLineParser.GetList(commandLine, "domains");
+		if (domains != null) {
+			selectedDomains = new HashSet<String>(domains);
+		}
+
+		List<String> algorithms = CommandLineParser.GetList(commandLine, "algorithms");
+		if (algorithms != null) {
+			for (String algorithmName : algorithms) {
+				if (!Arrays.asList(MLAlgorithms.ALGORITHMS).contains(algorithmName)) {
+					throw new IllegalArgumentException("Unknown algorithm: " + algorithmName);
+				}
+			}
+
+			selectedAlgorithms = algorithms;
+		}
+
+		checkSerialCrossValidation |= CommandLineParser.GetFlag(commandLine, "check-serial");
+		streamingMode |= CommandLineParser.GetFlag(commandLine, "streaming");
+		rebuildFeatures |= CommandLineParser.GetFlag(commandLine, "rebuild");
+		exportFeaturesCSV &= !CommandLineParser.GetFlag(commandLine, "no-csv-export");
+
+		if (CommandLineParser.GetFlag(commandLine, "cache")) {
+			normalizedCache = new NormalizedDatasetCache("cache");
+		}
+
+		extractionSettings.SampleRows = CommandLineParser.GetInt(commandLine, "sample-rows",
+				extractionSettings.SampleRows);
+		extractionSettings.SampleFraction = CommandLineParser.GetDouble(commandLine, "sample-fraction",
+				extractionSettings.SampleFraction);
+
+		extractionSettings.LocaleNumbers |= CommandLineParser.GetFlag(commandLine, "locale-numbers");
+
+		extractionSettings.ApproximateDistinct |= CommandLineParser.GetFlag(commandLine, "approximate-distinct");
+		extractionSettings.DistinctRelativeError = CommandLineParser.GetDouble(commandLine, "distinct-error",
+				extractionSettings.DistinctRelativeError);
+
+		if (extractionSettings.DistinctRelativeError <= 0 || extractionSettings.DistinctRelativeError >= 1) {
+			throw new IllegalArgumentException("Option --distinct-error needs a number between 0 and 1");
+		}
+
+		// streamed files are read to not hold them in memory, so large columns are not kept for quantiles either
+		extractionSettings.ApproximateQuantiles |= streamingMode
+				|| CommandLineParser.GetFlag(commandLine, "approximate-quantiles");
+		extractionSettings.QuantileRelativeError = CommandLineParser.GetDouble(commandLine, "quantile-error",
+				extractionSettings.QuantileRelativeError);
+
+		if (extractionSettings.QuantileRelativeError <= 0 || extractionSettings.QuantileRelativeError >= 1) {
+			throw new IllegalArgumentException("Option --quantile-error needs a number between 0 and 1");
+		}
+
+		if (extractionSettings.SampleRows < 0 || extractionSettings.SampleFraction < 0
+				|| extractionSettings.SampleFraction > 1) {
+			throw new IllegalArgumentException("Sampling needs a positive number of rows or a fraction from 0 to 1");
+		}
+
+		modelRegistry = new ModelRegistry(CommandLineParser.GetString(commandLine, "models", "models"),
+				Boolean.getBoolean("retrain") || CommandLineParser.GetFlag(commandLine, "retrain"));
+
+		serverPort = CommandLineParser.GetInt(commandLine, "port", serverPort > 0 ? serverPort : 8080);
+	}
+
+	private static int ScoreFiles(CommandLineModel commandLine, TableScoresWriter scoresWriter) throws Exception {
+		String outputFileName = CommandLineParser.GetString(commandLine, "output", null);
+
+		// messages about files that could not be read go to the error output, so standard output has only scores
+		PrintStream log = scoresWriter.IsText() ? System.out : System.err;
+
+		try (PrintStream out = outputFileName != null
+				? new PrintStream(new FileOutputStream(outputFileName), true, StandardCharsets.UTF_8)
+				: new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8)) {
+			return DetectMeasures(commandLine.Arguments, scoresWriter, out, log) ? EXIT_SUCCESS
+					: EXIT_UNREADABLE_FILES;
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			CommandLineParser.PrintUsage();
+			return EXIT_USAGE;
+		}
+	}
+
+	private static ExtractionSettingsModel GetExtractionSettings() {
+		ExtractionSettingsModel settings = new ExtractionSettingsModel();
+		settings.SampleRows = Integer.getInteger("samplerows", settings.SampleRows);
+		settings.SampleFraction = Double.parseDouble(System.getProperty("samplefraction",
+				Double.toString(settings.SampleFraction)));
+		settings.LocaleNumbers = Boolean.getBoolean("localenumbers");
+		settings.ApproximateDistinct = Boolean.getBoolean("approximatedistinct");
+		settings.DistinctRelativeError = Double.parseDouble(System.getProperty("distincterror",
+				Double.toString(settings.DistinctRelativeError)));
+		settings.ApproximateQuantiles = Boolean.parseBoolean(System.getProperty("approximatequantiles",
+				Boolean.toString(streamingMode)));
+		settings.QuantileRelativeError = Double.parseDouble(System.getProperty("quantileerror",
+				Double.toString(settings.QuantileRelativeError)));
+
+		return settings;
+	}
+
 	private static void PrintHelp() {
 		System.out.println("To calculate the features of measures columns, enter the [a] key.");
 		System.out.println("To perform training and validation on machine learning algorithms, enter the [s] key.");
+		System.out.println("To detect measure columns of new CSV files, enter the [d] key.");
 		System.out.println("To close the program, enter the [q] key.");
 	}
 
+	// the measure detection model is trained on the features table and kept in the model registry
+	private static void TrainMeasureDetector() throws Exception {
+		long startTime = System.nanoTime();
+
+		measureDetector = new MeasureDetector(featureStore.Load(), modelRegistry, extractionSettings);
+
+		System.out.println("---- Measure detection model ready in " + (System.nanoTime() - startTime) / 1000000
+				+ " ms ----");
+	}
+
+	private static MeasureDetector GetMeasureDetector() throws Exception {
+		return GetMeasureDetector(System.out);
+	}
+
+	// the log of the detector is the one of its first use
+	private static MeasureDetector GetMeasureDetector(PrintStream log) throws Exception {
+		if (measureDetector == null) {
+			measureDetector = new MeasureDetector(featureStore.Load(log), modelRegistry, extractionSettings, log);
+		}
+
+		return measureDetector;
+	}
+
 	private static void DetectFeatures() throws Exception {
-		Instances data = csvManager.GetDataSet("features.csv", ";");
+		Instances[] trainAndTest = GetTrainAndTestDataSets();
+		Instances train = trainAndTest[0];
+		Instances test = trainAndTest[1];
+
+		System.out.println("---- Train dataset information ----");
+		System.out.println(train.toSummaryString());
+		
+		System.out.println("---- Test dataset information ----");
+		System.out.println(test.toSummaryString());
+
+		// algorithms are evaluated concurrently, their results are printed in the order of the algorithms
+		ForkJoinPool pool = new ForkJoinPool(workersNumber);
+		try {
+			List<ForkJoinTask<String>> tasks = new ArrayList<ForkJoinTask<String>>();
+
+			for (String algorithmName : selectedAlgorithms) {
+				tasks.add(pool.submit(() -> EvaluateAlgorithm(algorithmName, train, test)));
+			}
+
+			for (ForkJoinTask<String> task : tasks) {
+				System.out.print(task.join());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// numeric columns of the features table in a random order, 70% of rows for training and the rest for testing
+	static Instances[] GetTrainAndTestDataSets() {
+		Instances data = featureStore.Load();
 
 		int seed = 100000;
 
@@ -75,259 +391,394 @@ public class MainProgram {
 		train.setClassIndex(0); // searching label on position 0 after removing all except numeric columns
 		test.setClassIndex(0);
 
-		System.out.println("---- Train dataset information ----");
-		System.out.println(train.toSummaryString());
-		
-		System.out.println("---- Test dataset information ----");
-		System.out.println(test.toSummaryString());
+		return new Instances[] { train, test };
+	}
+
+	private static String EvaluateAlgorithm(String algorithmName, Instances train, Instances test) throws Exception {
+		return EvaluateAlgorithm(algorithmName, train, test, false);
+	}
+
+	private static String EvaluateAlgorithm(String algorithmName, Instances train, Instances test,
+			boolean serialCrossValidation) throws Exception {
+		ByteArrayOutputStream logBuffer = new ByteArrayOutputStream();
+		PrintStream log = new PrintStream(logBuffer, true);
+
+		MLAlgorithms algorithmManager = new MLAlgorithms(log, modelRegistry, serialCrossValidation);
+		algorithmManager.Evaluate(algorithmName, train, test);
+
+		return logBuffer.toString();
+	}
+
+	// the output of every algorithm and the statistics of its cross-validation are compared with the serial run,
+	// the split and the folds have fixed seeds, so both runs have to give the same results
+	private static boolean CheckCrossValidation() throws Exception {
+		Instances[] trainAndTest = GetTrainAndTestDataSets();
+		Instances train = trainAndTest[0];
+		Instances test = trainAndTest[1];
+
+		System.out.println("---- Parallel and serial cross-validation, 10 folds of seed 1 ----");
+
+		boolean same = true;
+
+		for (String algorithmName : selectedAlgorithms) {
+			String difference = FirstDifference(EvaluateAlgorithm(algorithmName, train, test, false),
+					EvaluateAlgorithm(algorithmName, train, test, true));
+
+			if (difference == null) {
+				difference = ParallelCrossValidation.CompareWithSerial(MLAlgorithms.CreateClassifier(algorithmName),
+						MLAlgorithms.PrepareDataSet(algorithmName, train), 10, 1);
+			}
 
-		MLAlgorithms algorithmManager = new MLAlgorithms();
-		algorithmManager.KStar(train, test);
-		algorithmManager.KNN(train, test);
-		algorithmManager.RandomForest(train, test);
-		algorithmManager.SVM(train, test);
+			System.out.println(algorithmName + ": " + (difference == null ? "same as serial" : "differs, " + difference));
+			same &= difference == null;
+		}
+
+		return same;
+	}
+
+	// the first line that differs, null when both outputs are the same
+	private static String FirstDifference(String output, String expectedOutput) {
+		String[] lines = output.split("\n", -1);
+		String[] expectedLines = expectedOutput.split("\n", -1);
+
+		for (int lineNr = 0; lineNr < Math.max(lines.length, expectedLines.length); lineNr++) {
+			String line = lineNr < lines.length ? lines[lineNr] : "";
+			String expectedLine = lineNr < expectedLines.length ? expectedLines[lineNr] : "";
+
+			if (!line.equals(expectedLine)) {
+				return "line " + (lineNr + 1) + ": " + line + " instead of " + expectedLine;
+			}
+		}
+
+		return null;
+	}
+
+	// the model is loaded before the first request, the service runs until the process is stopped
+	private static void StartServer() throws Exception {
+		MeasureDetectionServer server = new MeasureDetectionServer(GetMeasureDetector(), serverPort, workersNumber);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> server.Stop()));
+		server.Start();
+
+		System.out.println("---- Measure detection service on http://localhost:" + server.GetPort() + "/detect ----");
+	}
+
+	// columns of files or of all files in directories are classified by the model trained on features.csv
+	// returns false when some files could not be read, scores go to out and messages to the log
+	private static boolean DetectMeasures(List<String> paths, TableScoresWriter scoresWriter, PrintStream out,
+			PrintStream log) throws Exception {
+		MeasureDetector detector = GetMeasureDetector(log);
+		long startTime = System.nanoTime();
+
+		List<TableScoresModel> tables = new ArrayList<TableScoresModel>();
+
+		for (String path : paths) {
+			if (Files.isDirectory(Paths.get(path))) {
+				tables.addAll(detector.ScoreDirectory(path, workersNumber));
+			} else {
+				tables.add(detector.ScoreTable(path));
+			}
+		}
+
+		if (tables.isEmpty()) {
+			throw new IllegalArgumentException("No CSV files to score in " + paths);
+		}
+
+		scoresWriter.Write(tables, out);
+
+		int columnsNumber = 0;
+		boolean allRead = true;
+
+		for (TableScoresModel table : tables) {
+			if (table.Columns == null) {
+				allRead = false;
+			} else {
+				columnsNumber += table.Columns.length;
+			}
+		}
+
+		// the summary is not part of json or csv output
+		(scoresWriter.IsText() ? out : log).println("---- Scored " + columnsNumber + " columns of "
+				+ tables.size() + " files in " + (System.nanoTime() - startTime) / 1000000 + " ms ----");
+
+		return allRead;
 	}
 
 	private static void PrepareFeaturesCSV() {
-		Instances main = csvManager.GetDataSet("features.csv", ";");
+		Instances main = featureStore.Load();
 
-		String prevFileName = "";
+		// rows of every dataset file and column are found without scanning features.csv
+		FeaturesTableIndex mainIndex = new FeaturesTableIndex(main);
+		List<DatasetInformationModel> datasets = mainIndex.GetDatasets();
 
-		for (Instance row : main) {
-			String domainModelName = row.stringValue(0);
-			String fileName = row.stringValue(1);
+		FeaturesManifest manifest = new FeaturesManifest("features.manifest");
 
-			if (prevFileName.equals(fileName)) {
-				continue;
+		if (!rebuildFeatures) {
+			manifest.Load();
+		}
+
+		int upToDateNumber = 0;
+		int computedNumber = 0;
+
+		// rows are sampled only by the streaming reader, so a sample of rows always streams the files
+		boolean streamed = streamingMode || RowSampler.IsEnabled(extractionSettings);
+
+		if (streamed && !streamingMode) {
+			System.out.println("---- Sampling of rows reads the files in streaming mode ----");
+		}
+
+		// a copy of the features table with the estimated features of sampled files
+		Instances estimates = null;
+		List<String> estimatedFiles = new ArrayList<String>();
+
+		// datasets are processed concurrently, results are merged in the order of features.csv
+		ForkJoinPool pool = new ForkJoinPool(workersNumber);
+		try {
+			List<ForkJoinTask<DatasetFeaturesModel>> tasks = new ArrayList<ForkJoinTask<DatasetFeaturesModel>>();
+
+			for (DatasetInformationModel datasetInfo : datasets) {
+				if (selectedDomains != null && !selectedDomains.contains(datasetInfo.DomainName)) {
+					continue;
+				}
+
+				String datasetPath = datasetsRoot + "/" + datasetInfo.DomainName + "/" + datasetInfo.DatasetName;
+
+				if (manifest.IsUpToDate(datasetPath,
+						FeaturesManifest.GetRowsHash(main, mainIndex.GetRows(datasetInfo.DatasetName)))) {
+					upToDateNumber++;
+					continue;
+				}
+
+				if (streamed) {
+					tasks.add(pool.submit(
+							() -> ProcessOneStreamedDataset(datasetInfo.DomainName, datasetInfo.DatasetName)));
+				} else {
+					tasks.add(pool.submit(() -> ProcessOneDataset(datasetInfo.DomainName, datasetInfo.DatasetName)));
+				}
 			}
 
-			ProcessOneDataset(domainModelName, fileName, main);
+			computedNumber = tasks.size();
+
+			for (ForkJoinTask<DatasetFeaturesModel> task : tasks) {
+				DatasetFeaturesModel datasetFeatures = task.join();
+
+				System.out.print(datasetFeatures.Log);
 
-			prevFileName = fileName;
+				// estimates from a sample are not written into the training table and not remembered as up to date
+				if (datasetFeatures.Sampled) {
+					if (estimates == null) {
+						estimates = new Instances(main);
+					}
+
+					SaveFeaturesToMainCSV(datasetFeatures.Features, estimates, mainIndex, datasetFeatures.FileName);
+					estimatedFiles.add(datasetFeatures.FileName);
+					continue;
+				}
+
+				if (datasetFeatures.Features != null) {
+					SaveFeaturesToMainCSV(datasetFeatures.Features, main, mainIndex, datasetFeatures.FileName);
+				}
+
+				// files that could not be read are remembered too, they fail again until they change
+				manifest.Update(datasetsRoot + "/" + datasetFeatures.DomainName + "/" + datasetFeatures.FileName,
+						FeaturesManifest.GetRowsHash(main, mainIndex.GetRows(datasetFeatures.FileName)));
+			}
+		} finally {
+			pool.shutdown();
 		}
 
-		SaveCSV(main, "features.csv", ";");
+		if (!estimatedFiles.isEmpty()) {
+			ExportEstimatedFeatures(estimates, estimatedFiles);
+		}
+
+		System.out.println("---- Datasets up to date: " + upToDateNumber + ", computed: " + computedNumber + " ----");
+
+		featureStore.Save(main, exportFeaturesCSV);
+		manifest.Save();
 		System.out.println("---- Done creating features csv file ----");
 	}
 
-	private static void Preprocess(Instances dataset, String fileName)
+	// preprocessing changes only the dataset in memory, source files are never rewritten
+	static void Preprocess(Instances dataset, ColumnVectorCache columnCache)
 	{
+		UnitNormalizer unitNormalizer = new UnitNormalizer();
+
 		for(int columnNr = 0; columnNr < dataset.numAttributes(); ++columnNr)
 		{
-			if(dataset.attribute(columnNr).isNominal())
+			if(unitNormalizer.Normalize(dataset, columnNr))
 			{
-				boolean withUnit = true;
-				String text = "";
-				for(Instance row : dataset)
-				{
-					String cellValue = row.stringValue(columnNr);
-					
-					Pattern pattern = Pattern.compile("\\D+\\d+");
-					Matcher matcher = pattern.matcher(cellValue);
-					if (matcher.matches())
-					{
-						Pattern textPattern = Pattern.compile("\\D+");
-						Matcher textMatcher = textPattern.matcher(cellValue);
-						
-						textMatcher.find();
-						String cellText = textMatcher.group(0);
-						if(text.isEmpty())
-						{
-							text = cellText;
-						}
-						else if (!text.equals(cellText))
-						{
-							withUnit = false;
-							break;
-						}
-					}
-					else
-					{
-						withUnit = false;
-						break;
-					}
-				}
-				if (withUnit)
-				{
-					for (Instance row : dataset)
-					{
-						String cellValue = row.stringValue(columnNr);
-						
-						Pattern valuePattern = Pattern.compile("\\d+");
-						Matcher valueMatcher = valuePattern.matcher(cellValue);
-						
-						valueMatcher.find();
-						String group = valueMatcher.group(0);
-						
-						dataset.renameAttributeValue(dataset.attribute(columnNr), cellValue, group);
-						
-						row.setValue(columnNr, group);
-					}
-				}
-				
-				withUnit = true;
-				for(Instance row : dataset)
-				{
-					String cellValue = row.stringValue(columnNr);
-					
-					Pattern pattern = Pattern.compile("\\d+\\D+");
-					Matcher matcher = pattern.matcher(cellValue);
-					if (matcher.matches())
-					{
-						Pattern textPattern = Pattern.compile("\\D+");
-						Matcher textMatcher = textPattern.matcher(cellValue);
-						
-						textMatcher.find();
-						String cellText = textMatcher.group(0);
-						if(text.isEmpty())
-						{
-							text = cellText;
-						}
-						else if (!text.equals(cellText))
-						{
-							withUnit = false;
-							break;
-						}
-					}
-					else
-					{
-						withUnit = false;
-						break;
-					}
-				}
-				if (withUnit)
-				{
-					for (Instance row : dataset)
-					{
-						
-						String cellValue = row.stringValue(columnNr);
-						Pattern valuePattern = Pattern.compile("\\d+");
-						Matcher valueMatcher = valuePattern.matcher(cellValue);
-						valueMatcher.find();
-						String group = valueMatcher.group(0);
-						
-						dataset.renameAttributeValue(dataset.attribute(columnNr), cellValue, group);
-						
-						row.setValue(columnNr, group);
-					}
-				}
+				columnCache.Invalidate(columnNr);
 			}
 		}
-		
-		SaveCSV(dataset, fileName, ",");
 	}
 	
-	private static boolean ProcessOneDataset(String domainName, String fileName, Instances main) {
-		boolean success = true;
+	private static DatasetFeaturesModel ProcessOneDataset(String domainName, String fileName) {
+		DatasetFeaturesModel datasetFeatures = new DatasetFeaturesModel();
+		datasetFeatures.DomainName = domainName;
+		datasetFeatures.FileName = fileName;
+
+		// console output of the dataset is collected, so parallel datasets do not mix their lines
+		ByteArrayOutputStream logBuffer = new ByteArrayOutputStream();
+		PrintStream log = new PrintStream(logBuffer, true);
 
-		String fullDatasetPath = "datasets/" + domainName + "/" + fileName;
+		String fullDatasetPath = datasetsRoot + "/" + domainName + "/" + fileName;
 
-		Instances dataset;
-		dataset = csvManager.GetDataSet(fullDatasetPath);
+		// a cached dataset is already preprocessed
+		Instances cachedDataset = normalizedCache != null ? normalizedCache.Load(fullDatasetPath) : null;
+		Instances dataset = cachedDataset != null ? cachedDataset : csvManager.GetDataSet(fullDatasetPath);
 
 		if (dataset == null) {
-			success = false;
-			System.out.println("There was a problem reading the file: " + fullDatasetPath + ". Skipping..");
-			return success;
+			log.println("There was a problem reading the file: " + fullDatasetPath + ". Skipping..");
+			datasetFeatures.Log = logBuffer.toString();
+			return datasetFeatures;
 		}
 
-		System.out.println("----- File: " + fullDatasetPath + " -----");
+		log.println("----- File: " + fullDatasetPath + " -----");
 
-		Preprocess(dataset, fullDatasetPath);
+		// one extraction manager per dataset, so column vectors are shared by all features
+		FeatureExtractionManager extractionManager = new FeatureExtractionManager(extractionSettings);
+		ColumnVectorCache columnCache = extractionManager.GetColumnCache(dataset);
+
+		if (cachedDataset == null) {
+			Preprocess(dataset, columnCache);
+
+			if (normalizedCache != null) {
+				normalizedCache.Save(fullDatasetPath, dataset);
+			}
+		}
 		
 		int attributesNumber = dataset.numAttributes();
-		Features[] features = new Features[attributesNumber];
 
-		for (int columnNr = 0; columnNr < attributesNumber; columnNr++) {
-			System.out.println("---- Column nr.: " + (columnNr + 1));
+		// columns of large datasets are profiled in parallel, every column by one task
+		boolean parallelColumns = (long) attributesNumber * dataset.numInstances() >= PARALLEL_COLUMNS_CELLS;
+
+		ForEachColumn(attributesNumber, parallelColumns, columnNr -> columnCache.GetProfile(columnNr));
 
+		// column types are classified once for all inter-column features
+		ColumnTypeIndex typeIndex = extractionManager.GetColumnTypeIndex(dataset);
+
+		Features[] features = new Features[attributesNumber];
+
+		ForEachColumn(attributesNumber, parallelColumns, columnNr -> {
 			String columnName = dataset.attribute(columnNr).name();
-			features[columnNr] = new Features(dataset, columnName, columnNr);
+			features[columnNr] = new Features(dataset, extractionManager, typeIndex, columnName, columnNr);
+		});
+
+		for (int columnNr = 0; columnNr < attributesNumber; columnNr++) {
+			log.println("---- Column nr.: " + (columnNr + 1));
+			features[columnNr].Print(log);
 		}
 
-		SaveFeaturesToMainCSV(features, main, fileName);
+		datasetFeatures.Features = features;
 
 		// Some data about CSV
-		System.out.println();
-		System.out.println(dataset.toSummaryString());
+		log.println();
+		log.println(dataset.toSummaryString());
 
-		return success;
+		datasetFeatures.Log = logBuffer.toString();
+		return datasetFeatures;
 	}
 
-	private static void SaveFeaturesToMainCSV(Features[] features, Instances main, String fileName) {
-		for (Instance row : main) {
-			if (row.stringValue(1).equals(fileName)) {
-				String columnName = row.stringValue(2);
-				for (int i = 0; i < features.length; ++i) {
-					if (columnName.equals(features[i].columnName)) {
-						row.setValue(4, features[i].dataType);
-						row.setValue(5, features[i].positiveNegativeZeroValueRatio.PositiveValueRatio);
-						row.setValue(6, features[i].positiveNegativeZeroValueRatio.NegativeValueRatio);
-						row.setValue(7, features[i].positiveNegativeZeroValueRatio.ZeroValueRatio);
-						row.setValue(8, features[i].uniqueValueRatio);
-						row.setValue(9, features[i].sameDigitalNumber);
-
-						row.setValue(10, features[i].statisticValuesModel.Average);
-						row.setValue(11, features[i].statisticValuesModel.Minimum);
-						row.setValue(12, features[i].statisticValuesModel.Maximum);
-						row.setValue(13, features[i].statisticValuesModel.Median);
-						row.setValue(14, features[i].statisticValuesModel.UpperQuartile);
-						row.setValue(15, features[i].statisticValuesModel.LowerQuartile);
-						row.setValue(16, features[i].coefficientOfVariation);
-						row.setValue(17, features[i].rangeRatio);
-
-						row.setValue(18, features[i].locationRatio);
-						row.setValue(19, features[i].numericalColumnRatioTmp);
-						row.setValue(20, features[i].numericalNeighbor);
-
-						break;
-					}
-				}
+	// the file is read once by the streaming reader, no Instances are built
+	private static DatasetFeaturesModel ProcessOneStreamedDataset(String domainName, String fileName) {
+		DatasetFeaturesModel datasetFeatures = new DatasetFeaturesModel();
+		datasetFeatures.DomainName = domainName;
+		datasetFeatures.FileName = fileName;
+
+		ByteArrayOutputStream logBuffer = new ByteArrayOutputStream();
+		PrintStream log = new PrintStream(logBuffer, true);
+
+		String fullDatasetPath = datasetsRoot + "/" + domainName + "/" + fileName;
+
+		FeatureExtractionManager extractionManager = new FeatureExtractionManager(extractionSettings);
+		StreamedDatasetModel streamedDataset = csvManager.GetColumnProfiles(fullDatasetPath, ",",
+				extractionManager.GetSettings());
+
+		if (streamedDataset == null) {
+			log.println("There was a problem reading the file: " + fullDatasetPath + ". Skipping..");
+			datasetFeatures.Log = logBuffer.toString();
+			return datasetFeatures;
+		}
+
+		log.println("----- File: " + fullDatasetPath + " -----");
+
+		Features[] features = extractionManager.GetFeatures(streamedDataset);
+
+		for (int columnNr = 0; columnNr < features.length; columnNr++) {
+			log.println("---- Column nr.: " + (columnNr + 1));
+			features[columnNr].Print(log);
+		}
+
+		datasetFeatures.Features = features;
+		datasetFeatures.Sampled = streamedDataset.SampleRowsNumber < streamedDataset.RowsNumber;
+
+		log.println();
+		log.println("Num Instances: " + streamedDataset.RowsNumber);
+
+		if (datasetFeatures.Sampled) {
+			log.println("Sampled Instances: " + streamedDataset.SampleRowsNumber);
+		}
+		log.println("Num Attributes: " + features.length);
+
+		datasetFeatures.Log = logBuffer.toString();
+		return datasetFeatures;
+	}
+
+	private static void ForEachColumn(int attributesNumber, boolean parallel, IntConsumer action) {
+		if (!parallel) {
+			for (int columnNr = 0; columnNr < attributesNumber; columnNr++) {
+				action.accept(columnNr);
 			}
+
+			return;
 		}
+
+		List<ForkJoinTask<?>> columnTasks = new ArrayList<ForkJoinTask<?>>();
+
+		for (int columnNr = 0; columnNr < attributesNumber; columnNr++) {
+			final int column = columnNr;
+			columnTasks.add(ForkJoinTask.adapt(() -> action.accept(column)));
+		}
+
+		ForkJoinTask.invokeAll(columnTasks);
 	}
 
-	private static void SaveCSV(Instances dataSet, String fileName, String separator) {
-		try {
-			BufferedWriter writer = new BufferedWriter(new FileWriter(fileName));
-
-			int coulmnsCount = dataSet.numAttributes();
-			
-			for (int i = 0; i < coulmnsCount; ++i) {
-				writer.write(dataSet.attribute(i).name());
-				if (i < dataSet.numAttributes() - 1) {
-					writer.write(separator);
-				} else {
-					writer.write("\n");
-				}
+	// rows of the sampled files with their estimated features go to their own CSV file,
+	// the features table keeps the exact features that train and evaluate learn from
+	private static void ExportEstimatedFeatures(Instances estimates, List<String> fileNames) {
+		FeaturesTableIndex estimatesIndex = new FeaturesTableIndex(estimates);
+		Instances sampledRows = new Instances(estimates, 0);
+
+		for (String fileName : fileNames) {
+			for (Instance row : estimatesIndex.GetRows(fileName)) {
+				sampledRows.add(row);
 			}
+		}
 
-			for (Instance row : dataSet) {
-				for (int j = 0; j < coulmnsCount; ++j) 
-				{
-					if(dataSet.attribute(j).isNumeric())
-					{
-						writer.write(Double.toString(row.value(j)));
-					}
-					else
-					{
-						writer.write(row.stringValue(j));
-					}
-					
-					if (j < dataSet.numAttributes() - 1) 
-					{
-						writer.write(separator);
-					} 
-					else 
-					{
-						writer.write("\n");
-					}
-				}
+		estimatedFeatureStore.ExportCSV(sampledRows);
+
+		System.out.println("---- Estimated features of " + fileNames.size() + " sampled files exported to "
+				+ ESTIMATED_FEATURES_CSV + ", the features table is not changed by them ----");
+	}
+
+	// the feature slots of a row are written at once, into a single copy of its values
+	private static void SaveFeaturesToMainCSV(Features[] features, Instances main, FeaturesTableIndex mainIndex,
+			String fileName) {
+		Set<String> savedColumns = new HashSet<String>();
+
+		for (Features feature : features) {
+			// the first column with the name wins
+			if (!savedColumns.add(feature.columnName)) {
+				continue;
 			}
 
-			writer.close();
-		} catch (IOException e) {
+			for (int rowNr : mainIndex.GetRowPositions(fileName, feature.columnName)) {
+				Instance row = main.instance(rowNr);
+				double[] values = row.toDoubleArray();
+
+				feature.CopyValues(values, 4);
 
+				main.set(rowNr, new DenseInstance(row.weight(), values));
+			}
 		}
 	}
 }
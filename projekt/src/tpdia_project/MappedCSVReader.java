@@ -0,0 +1,441 @@
+package tpdia_project;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// reads a memory-mapped CSV file row by row, cells are offsets and lengths in the mapped bytes
+// cells are decoded to strings or numbers only when they are needed
+// tokens follow the same rules as in StreamingCSVReader, all bytes of multi-byte UTF-8 characters are word bytes
+public class MappedCSVReader implements Closeable {
+	private static final int TOKEN_EOF = -1;
+	private static final int TOKEN_EOL = -2;
+	private static final int TOKEN_WORD = -3;
+	private static final int TOKEN_SEPARATOR = -4;
+
+	private final FileChannel channel;
+	private final ByteBuffer bytes;
+	private final int size;
+	private final int separator;
+	private int position;
+	private boolean skipLineFeed;
+
+	private int tokenType;
+	private int tokenOffset;
+	private int tokenLength;
+	private boolean tokenEscaped;
+	private int tokenStart;
+	private int rowOffset;
+
+	private final List<String> columnNames = new ArrayList<String>();
+	private int rowsNumber;
+
+	// cells of the current row
+	private int cellsNumber;
+	private int[] cellOffsets = new int[16];
+	private int[] cellLengths = new int[16];
+	private boolean[] cellMissing = new boolean[16];
+	private boolean[] cellEscaped = new boolean[16];
+
+	// bytes of a cell that is decoded
+	private byte[] cellBytes = new byte[64];
+
+	public MappedCSVReader(String fileName, String fieldSeparator) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+
+		if (channel.size() > Integer.MAX_VALUE) {
+			channel.close();
+			throw new IOException("File is too large to be mapped: " + fileName);
+		}
+
+		size = (int) channel.size();
+		bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		separator = fieldSeparator.charAt(0);
+
+		readHeader();
+	}
+
+	public List<String> GetColumnNames() {
+		return columnNames;
+	}
+
+	public int GetRowsNumber() {
+		return rowsNumber;
+	}
+
+	// moves to the next row, returns false at the end of the file
+	public boolean ReadRow() throws IOException {
+		nextToken();
+		while (tokenType == TOKEN_EOL) {
+			nextToken();
+		}
+
+		if (tokenType == TOKEN_EOF) {
+			return false;
+		}
+
+		rowOffset = tokenStart;
+		cellsNumber = 0;
+		boolean first = true;
+
+		while (tokenType != TOKEN_EOL && tokenType != TOKEN_EOF) {
+			if (!first) {
+				nextToken();
+			}
+
+			boolean wasSeparator;
+
+			if (tokenType == TOKEN_SEPARATOR || tokenType == TOKEN_EOL) {
+				addCell(0, 0, true, false);
+				wasSeparator = true;
+			} else {
+				wasSeparator = false;
+
+				if (tokenType == TOKEN_EOF) {
+					throw new IOException("premature end of file, line: " + (rowsNumber + 2));
+				}
+
+				addCell(tokenOffset, tokenLength, isMissingToken(), tokenEscaped);
+			}
+
+			if (!wasSeparator) {
+				nextToken();
+			}
+
+			first = false;
+		}
+
+		if (cellsNumber != columnNames.size()) {
+			throw new IOException("wrong number of values. Read " + cellsNumber + ", expected " + columnNames.size()
+					+ ", line: " + (rowsNumber + 2));
+		}
+
+		rowsNumber++;
+		return true;
+	}
+
+	// start of the current row in the file
+	public int GetRowOffset() {
+		return rowOffset;
+	}
+
+	// reads a row at an offset from GetRowOffset again, e.g. a row chosen by sampling after the whole file was read
+	public void ReadRowAt(int offset) throws IOException {
+		int readRowsNumber = rowsNumber;
+
+		position = offset;
+		skipLineFeed = false;
+		ReadRow();
+
+		rowsNumber = readRowsNumber;
+	}
+
+	// "?" and blank cells are missing values
+	public boolean IsMissing(int column) {
+		return cellMissing[column];
+	}
+
+	// a quoted cell with backslash escapes is different from its bytes, it is only available as a string
+	public boolean IsEscaped(int column) {
+		return cellEscaped[column];
+	}
+
+	public ByteBuffer GetBytes() {
+		return bytes;
+	}
+
+	public int GetCellOffset(int column) {
+		return cellOffsets[column];
+	}
+
+	public int GetCellLength(int column) {
+		return cellLengths[column];
+	}
+
+	public int GetCellHash(int column) {
+		int hash = 0;
+		int end = cellOffsets[column] + cellLengths[column];
+
+		for (int i = cellOffsets[column]; i < end; i++) {
+			hash = 31 * hash + bytes.get(i);
+		}
+
+		return hash;
+	}
+
+	public boolean ParseNumber(int column, NumberParser parser) {
+		if (cellEscaped[column]) {
+			return parser.Parse(GetString(column));
+		}
+
+		return parser.Parse(bytes, cellOffsets[column], cellLengths[column]);
+	}
+
+	public String GetString(int column) {
+		return decode(cellOffsets[column], cellLengths[column], cellEscaped[column]);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private void addCell(int offset, int length, boolean missing, boolean escaped) {
+		if (cellsNumber == cellOffsets.length) {
+			cellOffsets = Arrays.copyOf(cellOffsets, cellsNumber << 1);
+			cellLengths = Arrays.copyOf(cellLengths, cellsNumber << 1);
+			cellMissing = Arrays.copyOf(cellMissing, cellsNumber << 1);
+			cellEscaped = Arrays.copyOf(cellEscaped, cellsNumber << 1);
+		}
+
+		cellOffsets[cellsNumber] = offset;
+		cellLengths[cellsNumber] = length;
+		cellMissing[cellsNumber] = missing;
+		cellEscaped[cellsNumber++] = escaped;
+	}
+
+	private boolean isMissingToken() {
+		if (tokenEscaped) {
+			String value = decode(tokenOffset, tokenLength, true);
+			return value.equals("?") || value.trim().length() == 0;
+		}
+
+		if (tokenLength == 1 && bytes.get(tokenOffset) == '?') {
+			return true;
+		}
+
+		// bytes of multi-byte characters are negative, so only ASCII whitespace is blank
+		for (int i = tokenOffset; i < tokenOffset + tokenLength; i++) {
+			if (bytes.get(i) < 0 || bytes.get(i) > ' ') {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// names are read from the first line, empty names are skipped
+	private void readHeader() throws IOException {
+		nextToken();
+
+		if (tokenType == TOKEN_EOF) {
+			throw new IOException("No data in the file!");
+		}
+
+		if (tokenType == TOKEN_EOL) {
+			throw new IOException("premature end of file");
+		}
+
+		Set<String> uniqueNames = new HashSet<String>();
+		boolean first = true;
+
+		while (tokenType != TOKEN_EOL && tokenType != TOKEN_EOF) {
+			if (!first) {
+				nextToken();
+			}
+
+			boolean wasSeparator = tokenType == TOKEN_SEPARATOR || tokenType == TOKEN_EOL;
+
+			if (tokenType == TOKEN_WORD) {
+				String name = decode(tokenOffset, tokenLength, tokenEscaped);
+
+				if (!uniqueNames.add(name)) {
+					throw new IOException("Attribute names are not unique! Causes: " + name);
+				}
+
+				columnNames.add(name);
+			}
+
+			if (!wasSeparator) {
+				nextToken();
+			}
+
+			first = false;
+		}
+	}
+
+	private int read() {
+		return position < size ? bytes.get(position++) & 0xFF : -1;
+	}
+
+	private void nextToken() {
+		int c = read();
+
+		if (skipLineFeed) {
+			skipLineFeed = false;
+
+			if (c == '\n') {
+				c = read();
+			}
+		}
+
+		if (c < 0) {
+			tokenType = TOKEN_EOF;
+			return;
+		}
+
+		tokenStart = position - 1;
+
+		while (c < ' ' && c != separator) {
+			if (c == '\r') {
+				skipLineFeed = true;
+				tokenType = TOKEN_EOL;
+				return;
+			}
+
+			if (c == '\n') {
+				tokenType = TOKEN_EOL;
+				return;
+			}
+
+			c = read();
+			if (c < 0) {
+				tokenType = TOKEN_EOF;
+				return;
+			}
+		}
+
+		if (c == separator) {
+			tokenType = TOKEN_SEPARATOR;
+			return;
+		}
+
+		tokenType = TOKEN_WORD;
+		tokenEscaped = false;
+
+		if (c == '"' || c == '\'') {
+			readQuoted(c);
+			return;
+		}
+
+		tokenOffset = position - 1;
+
+		do {
+			c = read();
+		} while (c >= ' ' && c != separator && c != '"' && c != '\'');
+
+		// the byte after the word is read again by the next token
+		if (c >= 0) {
+			position--;
+		}
+
+		tokenLength = position - tokenOffset;
+	}
+
+	// quoted value ends with the same quote or with the line, an escaped character never ends it
+	private void readQuoted(int quote) {
+		tokenOffset = position;
+		int d = read();
+
+		while (d >= 0 && d != quote && d != '\n' && d != '\r') {
+			if (d == '\\') {
+				tokenEscaped = true;
+				read();
+			}
+
+			d = read();
+		}
+
+		if (d < 0) {
+			tokenLength = position - tokenOffset;
+			return;
+		}
+
+		tokenLength = position - 1 - tokenOffset;
+
+		// the line end after an unclosed quote is the next token
+		if (d != quote) {
+			position--;
+		}
+	}
+
+	private String decode(int offset, int length, boolean escaped) {
+		if (cellBytes.length < length) {
+			cellBytes = new byte[Math.max(length, cellBytes.length * 2)];
+		}
+
+		for (int i = 0; i < length; i++) {
+			cellBytes[i] = bytes.get(offset + i);
+		}
+
+		String text = new String(cellBytes, 0, length, StandardCharsets.UTF_8);
+		return escaped ? unescape(text) : text;
+	}
+
+	// backslash escapes of quoted values, decoded the same way as by StreamTokenizer
+	private static String unescape(String text) {
+		StringBuilder value = new StringBuilder(text.length());
+		int position = 0;
+		int d = position < text.length() ? text.charAt(position++) : -1;
+
+		while (d >= 0) {
+			int c;
+
+			if (d == '\\') {
+				c = position < text.length() ? text.charAt(position++) : -1;
+				int first = c;
+
+				if (c >= '0' && c <= '7') {
+					c = c - '0';
+					int c2 = position < text.length() ? text.charAt(position++) : -1;
+
+					if ('0' <= c2 && c2 <= '7') {
+						c = (c << 3) + (c2 - '0');
+						c2 = position < text.length() ? text.charAt(position++) : -1;
+
+						if ('0' <= c2 && c2 <= '7' && first <= '3') {
+							c = (c << 3) + (c2 - '0');
+							d = position < text.length() ? text.charAt(position++) : -1;
+						} else {
+							d = c2;
+						}
+					} else {
+						d = c2;
+					}
+				} else {
+					switch (c) {
+					case 'a':
+						c = 0x7;
+						break;
+					case 'b':
+						c = '\b';
+						break;
+					case 'f':
+						c = 0xC;
+						break;
+					case 'n':
+						c = '\n';
+						break;
+					case 'r':
+						c = '\r';
+						break;
+					case 't':
+						c = '\t';
+						break;
+					case 'v':
+						c = 0xB;
+						break;
+					}
+
+					d = position < text.length() ? text.charAt(position++) : -1;
+				}
+			} else {
+				c = d;
+				d = position < text.length() ? text.charAt(position++) : -1;
+			}
+
+			value.append((char) c);
+		}
+
+		return value.toString();
+	}
+}
@@ -0,0 +1,208 @@
+package tpdia_project;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import tpdia_project.Models.TableScoresModel;
+
+// local http service that keeps the measure detector and its model loaded between requests
+// POST /detect with a CSV file in the body, or GET /detect?path=file-or-directory, answers with the scored columns
+// GET /metrics answers with the latencies of the last requests
+public class MeasureDetectionServer {
+	// latencies of this many last requests are kept for the percentiles
+	private static final int LATENCIES_NUMBER = 1024;
+
+	private final MeasureDetector measureDetector;
+	private final int workersNumber;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	private final long[] latencies = new long[LATENCIES_NUMBER];
+	private long requestsNumber;
+
+	// only the loopback address is bound, files are read with the rights of the server
+	public MeasureDetectionServer(MeasureDetector measureDetector, int port, int workersNumber) throws IOException {
+		this.measureDetector = measureDetector;
+		this.workersNumber = workersNumber;
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		executor = Executors.newFixedThreadPool(workersNumber);
+
+		server.createContext("/detect", exchange -> handle(exchange, this::detect, true));
+		server.createContext("/metrics", exchange -> handle(exchange, this::metrics, false));
+		server.setExecutor(executor);
+	}
+
+	public void Start() {
+		server.start();
+	}
+
+	public void Stop() {
+		server.stop(0);
+		executor.shutdown();
+	}
+
+	public int GetPort() {
+		return server.getAddress().getPort();
+	}
+
+	private interface RequestHandler {
+		String Handle(HttpExchange exchange, StringBuilder json) throws Exception;
+	}
+
+	// a handler writes the json answer and returns an error message or null
+	private void handle(HttpExchange exchange, RequestHandler handler, boolean measured) throws IOException {
+		long startTime = System.nanoTime();
+		StringBuilder json = new StringBuilder();
+		int status = 200;
+
+		try {
+			String error = handler.Handle(exchange, json);
+
+			if (error != null) {
+				status = 400;
+				json.setLength(0);
+				json.append("{\"error\":");
+				TableScoresWriter.AppendJsonString(json, error);
+				json.append('}');
+			}
+		} catch (Exception e) {
+			status = 500;
+			json.setLength(0);
+			json.append("{\"error\":");
+			TableScoresWriter.AppendJsonString(json, String.valueOf(e.getMessage()));
+			json.append('}');
+		}
+
+		byte[] body = json.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+
+		if (measured) {
+			recordLatency(System.nanoTime() - startTime);
+		}
+	}
+
+	private String detect(HttpExchange exchange, StringBuilder json) throws Exception {
+		long startTime = System.nanoTime();
+		String path = getQueryParameter(exchange, "path");
+		List<TableScoresModel> tables;
+
+		if (path != null) {
+			if (!Files.exists(Paths.get(path))) {
+				return "No such file or directory: " + path;
+			}
+
+			tables = Files.isDirectory(Paths.get(path)) ? measureDetector.ScoreDirectory(path, workersNumber)
+					: Arrays.asList(measureDetector.ScoreTable(path));
+		} else if (exchange.getRequestMethod().equals("POST")) {
+			tables = Arrays.asList(scoreUpload(exchange.getRequestBody()));
+		} else {
+			return "Send a CSV file with POST or a file or directory in the path parameter";
+		}
+
+		json.append("{\"tables\":[");
+
+		for (int i = 0; i < tables.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+
+			TableScoresWriter.AppendJson(json, tables.get(i));
+		}
+
+		json.append("],\"milliseconds\":").append((System.nanoTime() - startTime) / 1e6).append('}');
+		return null;
+	}
+
+	// the uploaded file is read by the mapped reader like every other file, so it is stored first
+	private TableScoresModel scoreUpload(InputStream body) throws Exception {
+		Path uploadPath = Files.createTempFile("upload", ".csv");
+
+		try {
+			Files.copy(body, uploadPath, StandardCopyOption.REPLACE_EXISTING);
+
+			TableScoresModel table = measureDetector.ScoreTable(uploadPath.toString());
+			table.FileName = "upload";
+
+			return table;
+		} finally {
+			Files.deleteIfExists(uploadPath);
+		}
+	}
+
+	private String metrics(HttpExchange exchange, StringBuilder json) {
+		long[] sorted;
+		long number;
+
+		synchronized (latencies) {
+			number = requestsNumber;
+			sorted = Arrays.copyOf(latencies, (int) Math.min(number, LATENCIES_NUMBER));
+		}
+
+		Arrays.sort(sorted);
+
+		json.append("{\"requests\":").append(number);
+		json.append(",\"p50Milliseconds\":").append(getPercentile(sorted, 0.5) / 1e6);
+		json.append(",\"p99Milliseconds\":").append(getPercentile(sorted, 0.99) / 1e6);
+		json.append(",\"maxMilliseconds\":").append(sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0);
+		json.append('}');
+
+		return null;
+	}
+
+	private void recordLatency(long nanoseconds) {
+		synchronized (latencies) {
+			latencies[(int) (requestsNumber++ % LATENCIES_NUMBER)] = nanoseconds;
+		}
+	}
+
+	// nearest rank of the sorted latencies
+	private static long getPercentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+
+		int rank = (int) Math.ceil(percentile * sorted.length);
+		return sorted[Math.max(rank, 1) - 1];
+	}
+
+	private static String getQueryParameter(HttpExchange exchange, String name) {
+		String query = exchange.getRequestURI().getRawQuery();
+
+		if (query == null) {
+			return null;
+		}
+
+		for (String parameter : query.split("&")) {
+			int separator = parameter.indexOf('=');
+
+			if (separator > 0 && parameter.substring(0, separator).equals(name)) {
+				return URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8);
+			}
+		}
+
+		return null;
+	}
+}
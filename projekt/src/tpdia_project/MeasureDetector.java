@@ -0,0 +1,189 @@
+package tpdia_project;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import tpdia_project.Models.ColumnScoreModel;
+import tpdia_project.Models.ExtractionSettingsModel;
+import tpdia_project.Models.StreamedDatasetModel;
+import tpdia_project.Models.TableScoresModel;
+import weka.classifiers.Classifier;
+import weka.classifiers.trees.RandomForest;
+import weka.core.Attribute;
+import weka.core.BatchPredictor;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.Utils;
+import weka.filters.Filter;
+import weka.filters.unsupervised.attribute.NumericToNominal;
+
+// classifies columns of new tables as measures, with a model trained on all rows of the features table
+// features of a table are extracted by the streaming reader, then all its columns are scored at once
+public class MeasureDetector {
+	public static final String ALGORITHM = "MeasureDetector";
+
+	private static final String FIELD_SEPARATOR = ",";
+	private static final double MEASURE_THRESHOLD = 0.5;
+
+	private final CSVManager csvManager;
+	private final ExtractionSettingsModel settings;
+
+	private final Classifier model;
+	private final Instances header;
+	private final int measureLabel;
+
+	// the model is taken from the registry when it was already trained on the same features table
+	public MeasureDetector(Instances featuresTable, ModelRegistry modelRegistry, ExtractionSettingsModel settings)
+			throws Exception {
+		this(featuresTable, modelRegistry, settings, System.out);
+	}
+
+	// messages about files that could not be read and models that could not be saved are printed to the log,
+	// so they do not mix with scores written to standard output
+	public MeasureDetector(Instances featuresTable, ModelRegistry modelRegistry, ExtractionSettingsModel settings,
+			PrintStream log) throws Exception {
+		this.settings = settings;
+		this.csvManager = new CSVManager(log);
+
+		Instances trainingDataSet = GetTrainingDataSet(featuresTable);
+
+		model = modelRegistry.Train(ALGORITHM, new RandomForest(), trainingDataSet, log);
+		header = new Instances(trainingDataSet, 0);
+		measureLabel = getMeasureLabel(header.classAttribute());
+	}
+
+	// numeric features with the label as a nominal class on position 0
+	public static Instances GetTrainingDataSet(Instances featuresTable) throws Exception {
+		Instances dataset = new CSVManager().DeleteAllCoumnsExceptNumeric(new Instances(featuresTable));
+
+		if (dataset.numAttributes() != Features.FEATURES_NUMBER + 1) {
+			throw new IllegalArgumentException("The features table has " + dataset.numAttributes()
+					+ " numeric columns, expected " + (Features.FEATURES_NUMBER + 1));
+		}
+
+		NumericToNominal labelToNominal = new NumericToNominal();
+		labelToNominal.setAttributeIndices("first");
+		labelToNominal.setInputFormat(dataset);
+
+		dataset = Filter.useFilter(dataset, labelToNominal);
+		dataset.setClassIndex(0);
+
+		return dataset;
+	}
+
+	// csv files of the directory and its subdirectories, tables are scored in parallel and returned in name order
+	public List<TableScoresModel> ScoreDirectory(String directory, int workersNumber) throws IOException {
+		List<String> fileNames;
+
+		try (Stream<Path> paths = Files.walk(Paths.get(directory))) {
+			fileNames = paths.filter(path -> Files.isRegularFile(path))
+					.map(path -> path.toString())
+					.filter(fileName -> fileName.toLowerCase().endsWith(".csv"))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(workersNumber);
+		try {
+			List<ForkJoinTask<TableScoresModel>> tasks = new ArrayList<ForkJoinTask<TableScoresModel>>();
+
+			for (String fileName : fileNames) {
+				tasks.add(pool.submit(() -> ScoreTable(fileName)));
+			}
+
+			List<TableScoresModel> tables = new ArrayList<TableScoresModel>(tasks.size());
+
+			for (ForkJoinTask<TableScoresModel> task : tasks) {
+				tables.add(task.join());
+			}
+
+			return tables;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	public TableScoresModel ScoreTable(String fileName) throws Exception {
+		TableScoresModel table = new TableScoresModel();
+		table.FileName = fileName;
+
+		FeatureExtractionManager extractionManager = new FeatureExtractionManager(settings);
+		StreamedDatasetModel streamedDataset = csvManager.GetColumnProfiles(fileName, FIELD_SEPARATOR, settings);
+
+		if (streamedDataset == null) {
+			return table;
+		}
+
+		table.RowsNumber = streamedDataset.RowsNumber;
+		table.Columns = Score(extractionManager.GetFeatures(streamedDataset));
+
+		return table;
+	}
+
+	// columns of one table are scored as one batch
+	public ColumnScoreModel[] Score(Features[] features) throws Exception {
+		Instances batch = new Instances(header, features.length);
+
+		for (Features feature : features) {
+			double[] values = new double[Features.FEATURES_NUMBER + 1];
+			values[0] = Utils.missingValue();
+			feature.CopyValues(values, 1);
+
+			batch.add(new DenseInstance(1.0, values));
+		}
+
+		double[][] distributions = getDistributions(batch);
+		ColumnScoreModel[] scores = new ColumnScoreModel[features.length];
+
+		for (int columnNr = 0; columnNr < features.length; columnNr++) {
+			ColumnScoreModel score = new ColumnScoreModel();
+			score.ColumnName = features[columnNr].columnName;
+			score.ColumnNr = columnNr;
+			score.MeasureProbability = measureLabel >= 0 ? distributions[columnNr][measureLabel] : 0;
+			score.IsMeasure = score.MeasureProbability >= MEASURE_THRESHOLD;
+
+			scores[columnNr] = score;
+		}
+
+		return scores;
+	}
+
+	// the same way of predicting as in weka evaluation, the batch method only when it is faster
+	private double[][] getDistributions(Instances batch) throws Exception {
+		if (model instanceof BatchPredictor && ((BatchPredictor) model).implementsMoreEfficientBatchPrediction()) {
+			return ((BatchPredictor) model).distributionsForInstances(batch);
+		}
+
+		double[][] distributions = new double[batch.numInstances()][];
+
+		for (int i = 0; i < batch.numInstances(); i++) {
+			distributions[i] = model.distributionForInstance(batch.instance(i));
+		}
+
+		return distributions;
+	}
+
+	// label 1 of the features table marks measure columns, -1 when the table has no measures
+	private static int getMeasureLabel(Attribute classAttribute) {
+		for (int label = 0; label < classAttribute.numValues(); label++) {
+			try {
+				if (Double.parseDouble(classAttribute.value(label)) == 1) {
+					return label;
+				}
+			} catch (NumberFormatException e) {
+				continue;
+			}
+		}
+
+		return -1;
+	}
+}
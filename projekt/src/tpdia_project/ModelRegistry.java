@@ -0,0 +1,190 @@
+package tpdia_project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import weka.classifiers.Classifier;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.Utils;
+import weka.core.Version;
+
+// trained classifiers stored in the registry directory, one file per algorithm, options and training data
+// a stored model is used instead of training when the training data, the options and the weka version are the same
+// format: header with the model key, then the serialized classifier
+public class ModelRegistry {
+	private static final int MAGIC = 0x4D4F444C; // MODL
+	// must be increased when the models are trained differently, so all models are trained again
+	private static final int VERSION = 1;
+
+	private final String registryDirectory;
+	private final boolean retrain;
+
+	// with retrain stored models are never used, they are replaced by the new ones
+	public ModelRegistry(String registryDirectory, boolean retrain) {
+		this.registryDirectory = registryDirectory;
+		this.retrain = retrain;
+	}
+
+	// the classifier is built on the training data, or replaced by a stored model trained the same way
+	public <T extends Classifier> T Train(String algorithmName, T classifier, Instances trainingDataSet)
+			throws Exception {
+		return Train(algorithmName, classifier, trainingDataSet, System.out);
+	}
+
+	// a model that could not be saved is reported to the log
+	@SuppressWarnings("unchecked")
+	public <T extends Classifier> T Train(String algorithmName, T classifier, Instances trainingDataSet,
+			PrintStream log) throws Exception {
+		String key = GetModelKey(algorithmName, classifier, trainingDataSet);
+		Classifier stored = retrain ? null : Load(algorithmName, key);
+
+		if (stored != null && stored.getClass() == classifier.getClass()) {
+			return (T) stored;
+		}
+
+		classifier.buildClassifier(trainingDataSet);
+		Save(algorithmName, key, classifier, log);
+
+		return classifier;
+	}
+
+	// returns null when there is no valid stored model
+	public Classifier Load(String algorithmName, String key) {
+		Path modelPath = getModelPath(algorithmName, key);
+
+		if (!Files.exists(modelPath)) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(modelPath)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || !key.equals(readString(in))) {
+				return null;
+			}
+
+			return (Classifier) new ObjectInputStream(in).readObject();
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			return null;
+		}
+	}
+
+	public void Save(String algorithmName, String key, Classifier classifier) {
+		Save(algorithmName, key, classifier, System.out);
+	}
+
+	public void Save(String algorithmName, String key, Classifier classifier, PrintStream log) {
+		Path modelPath = getModelPath(algorithmName, key);
+
+		try {
+			Files.createDirectories(modelPath.getParent());
+
+			// written to a temporary file first, so a broken run never leaves half a model
+			Path temporaryPath = Files.createTempFile(modelPath.getParent(), modelPath.getFileName().toString(), ".tmp");
+
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				writeString(out, key);
+
+				ObjectOutputStream objectOut = new ObjectOutputStream(out);
+				objectOut.writeObject(classifier);
+				objectOut.flush();
+			}
+
+			Files.move(temporaryPath, modelPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			log.println("Could not save the model " + modelPath + ": " + e.getMessage());
+		}
+	}
+
+	// algorithm, classifier with its options, weka version and hash of the training data
+	public static String GetModelKey(String algorithmName, Classifier classifier, Instances trainingDataSet) {
+		String options = classifier instanceof OptionHandler
+				? Utils.joinOptions(((OptionHandler) classifier).getOptions())
+				: "";
+
+		return algorithmName + ";" + classifier.getClass().getName() + " " + options + ";weka " + Version.VERSION
+				+ ";" + GetDatasetHash(trainingDataSet);
+	}
+
+	// hash of the attributes, the class index and the exact values of all rows
+	public static String GetDatasetHash(Instances dataset) {
+		MessageDigest digest = getDigest();
+
+		try (DataOutputStream out = new DataOutputStream(
+				new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+			out.writeInt(dataset.numAttributes());
+			out.writeInt(dataset.classIndex());
+
+			for (int i = 0; i < dataset.numAttributes(); i++) {
+				Attribute attribute = dataset.attribute(i);
+
+				writeString(out, attribute.name());
+				out.writeInt(attribute.type());
+				out.writeInt(attribute.numValues());
+
+				for (int label = 0; label < attribute.numValues(); label++) {
+					writeString(out, attribute.value(label));
+				}
+			}
+
+			out.writeInt(dataset.numInstances());
+
+			for (Instance row : dataset) {
+				out.writeDouble(row.weight());
+
+				for (int i = 0; i < dataset.numAttributes(); i++) {
+					out.writeDouble(row.value(i));
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return CSVManager.GetHexString(digest.digest());
+	}
+
+	// file names are short, the whole key is checked when the model is loaded
+	private Path getModelPath(String algorithmName, String key) {
+		String keyHash = CSVManager.GetHexString(getDigest().digest(key.getBytes(StandardCharsets.UTF_8)));
+		return Paths.get(registryDirectory, algorithmName + "-" + keyHash.substring(0, 16) + ".model");
+	}
+
+	private static MessageDigest getDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
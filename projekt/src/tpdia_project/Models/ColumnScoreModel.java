@@ -0,0 +1,15 @@
+package tpdia_project.Models;
+
+public class ColumnScoreModel {
+	public ColumnScoreModel() {
+		this.ColumnName = "";
+		this.ColumnNr = 0;
+		this.MeasureProbability = 0;
+		this.IsMeasure = false;
+	}
+
+	public String ColumnName;
+	public int ColumnNr;
+	public double MeasureProbability;
+	public boolean IsMeasure; // probability of at least the detection threshold
+}
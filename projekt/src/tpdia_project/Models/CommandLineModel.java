@@ -0,0 +1,18 @@
+package tpdia_project.Models;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CommandLineModel {
+	public CommandLineModel() {
+		this.Command = "";
+		this.Options = new LinkedHashMap<String, String>();
+		this.Arguments = new ArrayList<String>();
+	}
+
+	public String Command;
+	public Map<String, String> Options; // names without "--", flags have the value "true"
+	public List<String> Arguments;
+}
@@ -0,0 +1,19 @@
+package tpdia_project.Models;
+
+import tpdia_project.Features;
+
+public class DatasetFeaturesModel {
+	public DatasetFeaturesModel() {
+		this.DomainName = "";
+		this.FileName = "";
+		this.Features = null;
+		this.Log = "";
+		this.Sampled = false;
+	}
+
+	public String DomainName;
+	public String FileName;
+	public Features[] Features; // null when the file could not be read
+	public String Log;
+	public boolean Sampled; // features are estimates from a sample of rows
+}
@@ -5,10 +5,12 @@ import java.util.List;
 
 public class DatasetInformationModel {
 	public DatasetInformationModel() {
+		this.DomainName = "";
 		this.DatasetName = "";
 		this.MeasuresColumns = new ArrayList<Integer>();
 	}
 
+	public String DomainName;
 	public String DatasetName;
 	public List<Integer> MeasuresColumns;
 }
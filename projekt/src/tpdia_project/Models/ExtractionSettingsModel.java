@@ -0,0 +1,39 @@
+package tpdia_project.Models;
+
+public class ExtractionSettingsModel {
+	public ExtractionSettingsModel() {
+		this.ApproximateDistinct = false;
+		this.ApproximateDistinctRows = 1000000;
+		this.DistinctRelativeError = 0.01;
+		this.ApproximateQuantiles = false;
+		this.ApproximateQuantileRows = 1000000;
+		this.QuantileRelativeError = 0.01;
+		this.ColumnChunkRows = 1000000;
+		this.LocaleNumbers = false;
+		this.SampleRows = 0;
+		this.SampleFraction = 0;
+		this.SampleSeed = 42;
+	}
+
+	// HyperLogLog is used for columns with at least ApproximateDistinctRows numbers
+	public boolean ApproximateDistinct;
+	public int ApproximateDistinctRows;
+	public double DistinctRelativeError;
+
+	// median and quartiles of columns with at least ApproximateQuantileRows numbers come from a quantile sketch
+	public boolean ApproximateQuantiles;
+	public int ApproximateQuantileRows;
+	public double QuantileRelativeError;
+
+	// columns with more rows are profiled in row ranges of this size at the same time
+	public int ColumnChunkRows;
+
+	// labels of nominal columns like "1 234,5" or "1.234,5" are numbers too
+	public boolean LocaleNumbers;
+
+	// streamed files are profiled from a sample of SampleRows rows (reservoir sampling) or of every row with the
+	// probability SampleFraction, features are then estimates with error bounds; 0 reads all rows
+	public int SampleRows;
+	public double SampleFraction;
+	public long SampleSeed;
+}
@@ -0,0 +1,13 @@
+package tpdia_project.Models;
+
+public class FileFingerprintModel {
+	public FileFingerprintModel() {
+		this.Size = 0;
+		this.ModifiedTime = 0;
+		this.Hash = "";
+	}
+
+	public long Size;
+	public long ModifiedTime; // milliseconds
+	public String Hash; // SHA-256 of the content, hex
+}
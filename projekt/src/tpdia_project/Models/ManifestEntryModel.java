@@ -0,0 +1,13 @@
+package tpdia_project.Models;
+
+public class ManifestEntryModel {
+	public ManifestEntryModel() {
+		this.DatasetPath = "";
+		this.Fingerprint = new FileFingerprintModel();
+		this.RowsHash = "";
+	}
+
+	public String DatasetPath;
+	public FileFingerprintModel Fingerprint; // of the dataset file
+	public String RowsHash; // of the dataset rows in features.csv
+}
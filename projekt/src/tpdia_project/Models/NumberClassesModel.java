@@ -0,0 +1,19 @@
+package tpdia_project.Models;
+
+public class NumberClassesModel {
+	public NumberClassesModel() {
+		this.MissingNumber = 0;
+		this.IntNumber = 0;
+		this.RealNumber = 0;
+		this.ZeroValue = 0;
+		this.PositiveValue = 0;
+		this.NegativeValue = 0;
+	}
+
+	public int MissingNumber; // NaN values, not counted in the other classes
+	public int IntNumber;
+	public int RealNumber;
+	public int ZeroValue;
+	public int PositiveValue;
+	public int NegativeValue;
+}
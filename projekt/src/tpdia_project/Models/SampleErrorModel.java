@@ -0,0 +1,38 @@
+package tpdia_project.Models;
+
+// bounds of features estimated from a sample of rows, at the 95% confidence level
+// ratios and the average have a symmetric error, the other features an interval
+public class SampleErrorModel {
+	public SampleErrorModel() {
+		this.SampleRows = 0;
+		this.TotalRows = 0;
+		this.PositiveValueRatio = 0;
+		this.NegativeValueRatio = 0;
+		this.ZeroValueRatio = 0;
+		this.UniqueValueRatioLower = 0;
+		this.UniqueValueRatioUpper = 0;
+		this.Average = 0;
+		this.MedianLower = 0;
+		this.MedianUpper = 0;
+		this.LowerQuartileLower = 0;
+		this.LowerQuartileUpper = 0;
+		this.UpperQuartileLower = 0;
+		this.UpperQuartileUpper = 0;
+	}
+
+	public int SampleRows;
+	public long TotalRows;
+
+	public double PositiveValueRatio; // +/-
+	public double NegativeValueRatio; // +/-
+	public double ZeroValueRatio; // +/-
+	public double UniqueValueRatioLower;
+	public double UniqueValueRatioUpper;
+	public double Average; // +/-
+	public double MedianLower;
+	public double MedianUpper;
+	public double LowerQuartileLower;
+	public double LowerQuartileUpper;
+	public double UpperQuartileLower;
+	public double UpperQuartileUpper;
+}
@@ -0,0 +1,20 @@
+package tpdia_project.Models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import tpdia_project.ColumnProfile;
+
+public class StreamedDatasetModel {
+	public StreamedDatasetModel() {
+		this.ColumnNames = new ArrayList<String>();
+		this.Profiles = new ColumnProfile[0];
+		this.RowsNumber = 0;
+		this.SampleRowsNumber = 0;
+	}
+
+	public List<String> ColumnNames;
+	public ColumnProfile[] Profiles;
+	public int RowsNumber;
+	public int SampleRowsNumber; // rows the profiles were computed from, RowsNumber when all rows were read
+}
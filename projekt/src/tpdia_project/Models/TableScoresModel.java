@@ -0,0 +1,13 @@
+package tpdia_project.Models;
+
+public class TableScoresModel {
+	public TableScoresModel() {
+		this.FileName = "";
+		this.Columns = null;
+		this.RowsNumber = 0;
+	}
+
+	public String FileName;
+	public ColumnScoreModel[] Columns; // null when the file could not be read
+	public int RowsNumber;
+}
@@ -0,0 +1,97 @@
+package tpdia_project;
+
+// count, mean, sum of squared differences, min and max of numbers in one pass
+// the mean and the squared differences are updated with Welford's method, partial results are merged as by Chan et al.
+// the sum is compensated the same way as in DoubleStream.average(), so the average does not change,
+// a plain sum is kept next to it for infinite values and overflows, where the compensation becomes NaN
+public class MomentsAccumulator {
+	private long count;
+	private double mean;
+	private double squaredDifferenceSum;
+	private double sum;
+	private double sumCompensation;
+	private double simpleSum;
+	private double minimum = Double.POSITIVE_INFINITY;
+	private double maximum = Double.NEGATIVE_INFINITY;
+
+	public void Add(double value) {
+		count++;
+
+		double delta = value - mean;
+		mean += delta / count;
+		squaredDifferenceSum += delta * (value - mean);
+
+		addToSum(value);
+		simpleSum += value;
+
+		minimum = Math.min(minimum, value);
+		maximum = Math.max(maximum, value);
+	}
+
+	// numbers of the other accumulator are added after the numbers of this one
+	public void Merge(MomentsAccumulator other) {
+		if (other.count == 0) {
+			return;
+		}
+
+		if (count == 0) {
+			count = other.count;
+			mean = other.mean;
+			squaredDifferenceSum = other.squaredDifferenceSum;
+			sum = other.sum;
+			sumCompensation = other.sumCompensation;
+			simpleSum = other.simpleSum;
+			minimum = other.minimum;
+			maximum = other.maximum;
+			return;
+		}
+
+		long mergedCount = count + other.count;
+		double delta = other.mean - mean;
+
+		squaredDifferenceSum += other.squaredDifferenceSum + delta * delta * ((double) count * other.count / mergedCount);
+		mean += delta * other.count / mergedCount;
+		count = mergedCount;
+
+		addToSum(other.sum);
+		addToSum(-other.sumCompensation);
+		simpleSum += other.simpleSum;
+
+		minimum = Math.min(minimum, other.minimum);
+		maximum = Math.max(maximum, other.maximum);
+	}
+
+	private void addToSum(double value) {
+		double compensated = value - sumCompensation;
+		double newSum = sum + compensated;
+		sumCompensation = (newSum - sum) - compensated;
+		sum = newSum;
+	}
+
+	public long Count() {
+		return count;
+	}
+
+	// the final sum as in Collectors.computeFinalSum
+	public double GetAverage() {
+		double finalSum = sum - sumCompensation;
+
+		if (Double.isNaN(finalSum) && Double.isInfinite(simpleSum)) {
+			finalSum = simpleSum;
+		}
+
+		return finalSum / count;
+	}
+
+	public double GetSquaredDifferenceSum() {
+		return squaredDifferenceSum;
+	}
+
+	public double GetMinimum() {
+		return minimum;
+	}
+
+	public double GetMaximum() {
+		return maximum;
+	}
+}
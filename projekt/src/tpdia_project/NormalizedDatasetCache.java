@@ -0,0 +1,269 @@
+package tpdia_project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import tpdia_project.Models.FileFingerprintModel;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+// preprocessed datasets stored in binary files, one file per source CSV
+// a cached dataset is used while the source has the same size and modification time or the same content hash
+// format: header with the source fingerprint, attributes with their labels, then the values column by column
+public class NormalizedDatasetCache {
+	private static final int MAGIC = 0x4E4F524D; // NORM
+	private static final int VERSION = 1;
+
+	private static final byte NUMERIC = 0;
+	private static final byte NOMINAL = 1;
+	private static final byte STRING = 2;
+
+	private final CSVManager csvManager = new CSVManager();
+	private final String cacheDirectory;
+
+	public NormalizedDatasetCache(String cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	// returns null when there is no valid cached dataset
+	// a truncated or corrupt entry is deleted, so the dataset is parsed from the CSV file and cached again
+	public Instances Load(String fileName) {
+		Path cachePath = getCachePath(fileName);
+
+		if (!Files.exists(cachePath)) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cachePath)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return null;
+			}
+
+			// no length in the entry can be larger than the entry itself
+			long entrySize = Files.size(cachePath);
+
+			long size = in.readLong();
+			long modifiedTime = in.readLong();
+			String hash = readString(in, entrySize);
+
+			FileFingerprintModel fingerprint = csvManager.GetFileFingerprint(fileName, false);
+
+			if (fingerprint.Size != size) {
+				return null;
+			}
+
+			// a touched file with the same content is still valid
+			if (fingerprint.ModifiedTime != modifiedTime && !csvManager.GetFileHash(fileName).equals(hash)) {
+				return null;
+			}
+
+			return readDataset(in, entrySize);
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Could not read the cached dataset " + cachePath + ": "
+					+ (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+			deleteEntry(cachePath);
+			return null;
+		}
+	}
+
+	// datasets with other attribute types than numeric, nominal and string are not cached
+	public void Save(String fileName, Instances dataset) {
+		for (int i = 0; i < dataset.numAttributes(); i++) {
+			if (getType(dataset.attribute(i)) < 0) {
+				return;
+			}
+		}
+
+		Path cachePath = getCachePath(fileName);
+
+		try {
+			FileFingerprintModel fingerprint = csvManager.GetFileFingerprint(fileName, true);
+
+			Files.createDirectories(cachePath.getParent());
+
+			// written to a temporary file first, so a broken run never leaves half a dataset
+			Path temporaryPath = Files.createTempFile(cachePath.getParent(), cachePath.getFileName().toString(), ".tmp");
+
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(fingerprint.Size);
+				out.writeLong(fingerprint.ModifiedTime);
+				writeString(out, fingerprint.Hash);
+
+				writeDataset(out, dataset);
+			}
+
+			Files.move(temporaryPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			System.out.println("Could not cache the dataset " + fileName + ": " + e.getMessage());
+		}
+	}
+
+	private static void deleteEntry(Path cachePath) {
+		try {
+			Files.deleteIfExists(cachePath);
+		} catch (IOException e) {
+			System.out.println("Could not delete the cached dataset " + cachePath + ": " + e.getMessage());
+		}
+	}
+
+	private Path getCachePath(String fileName) {
+		return Paths.get(cacheDirectory, fileName + ".bin");
+	}
+
+	private static void writeDataset(DataOutputStream out, Instances dataset) throws IOException {
+		int attributesNumber = dataset.numAttributes();
+		int rowsNumber = dataset.numInstances();
+
+		writeString(out, dataset.relationName());
+		out.writeInt(attributesNumber);
+		out.writeInt(rowsNumber);
+
+		for (int i = 0; i < attributesNumber; i++) {
+			Attribute attribute = dataset.attribute(i);
+			byte type = getType(attribute);
+
+			writeString(out, attribute.name());
+			out.writeByte(type);
+
+			if (type != NUMERIC) {
+				out.writeInt(attribute.numValues());
+
+				for (int label = 0; label < attribute.numValues(); label++) {
+					writeString(out, attribute.value(label));
+				}
+			}
+		}
+
+		// numbers are stored as doubles, labels as their indexes with -1 for missing values
+		for (int i = 0; i < attributesNumber; i++) {
+			double[] column = dataset.attributeToDoubleArray(i);
+
+			if (getType(dataset.attribute(i)) == NUMERIC) {
+				for (int row = 0; row < rowsNumber; row++) {
+					out.writeDouble(column[row]);
+				}
+			} else {
+				for (int row = 0; row < rowsNumber; row++) {
+					out.writeInt(Double.isNaN(column[row]) ? -1 : (int) column[row]);
+				}
+			}
+		}
+	}
+
+	private static Instances readDataset(DataInputStream in, long entrySize) throws IOException {
+		String relationName = readString(in, entrySize);
+		int attributesNumber = in.readInt();
+		int rowsNumber = in.readInt();
+
+		// every cell takes at least 4 bytes
+		if (attributesNumber < 0 || rowsNumber < 0 || (long) attributesNumber * rowsNumber * 4 > entrySize) {
+			throw new IOException("Wrong size of the dataset: " + rowsNumber + " x " + attributesNumber);
+		}
+
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>(attributesNumber);
+		byte[] types = new byte[attributesNumber];
+
+		for (int i = 0; i < attributesNumber; i++) {
+			String name = readString(in, entrySize);
+			types[i] = in.readByte();
+
+			if (types[i] == NUMERIC) {
+				attributes.add(new Attribute(name));
+				continue;
+			}
+
+			int labelsNumber = in.readInt();
+
+			if (labelsNumber < 0 || labelsNumber > entrySize) {
+				throw new IOException("Wrong number of labels: " + labelsNumber);
+			}
+			List<String> labels = new ArrayList<String>(labelsNumber);
+
+			for (int label = 0; label < labelsNumber; label++) {
+				labels.add(readString(in, entrySize));
+			}
+
+			if (types[i] == NOMINAL) {
+				attributes.add(new Attribute(name, labels));
+			} else {
+				Attribute attribute = new Attribute(name, (List<String>) null);
+
+				for (String label : labels) {
+					attribute.addStringValue(label);
+				}
+
+				attributes.add(attribute);
+			}
+		}
+
+		double[][] rows = new double[rowsNumber][attributesNumber];
+
+		for (int i = 0; i < attributesNumber; i++) {
+			for (int row = 0; row < rowsNumber; row++) {
+				if (types[i] == NUMERIC) {
+					rows[row][i] = in.readDouble();
+				} else {
+					int label = in.readInt();
+					rows[row][i] = label < 0 ? Double.NaN : label;
+				}
+			}
+		}
+
+		Instances dataset = new Instances(relationName, attributes, rowsNumber);
+
+		for (int row = 0; row < rowsNumber; row++) {
+			dataset.add(new DenseInstance(1.0, rows[row]));
+		}
+
+		return dataset;
+	}
+
+	private static byte getType(Attribute attribute) {
+		if (attribute.isNominal()) {
+			return NOMINAL;
+		}
+
+		if (attribute.isString()) {
+			return STRING;
+		}
+
+		if (attribute.type() == Attribute.NUMERIC) {
+			return NUMERIC;
+		}
+
+		return -1;
+	}
+
+	// labels can be longer than writeUTF allows
+	private static void writeString(DataOutputStream out, String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in, long entrySize) throws IOException {
+		int length = in.readInt();
+
+		if (length < 0 || length > entrySize) {
+			throw new IOException("Wrong length of a text: " + length);
+		}
+
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,384 @@
+package tpdia_project;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// reads numbers from labels without exceptions and without allocations in the common case
+// strict mode accepts exactly what Double.parseDouble accepts and gives the same values
+// locale mode also accepts thousands separators and a decimal comma, e.g. "1 234,5", "1.234,5" or "12,5"
+public class NumberParser {
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	// a mantissa of up to 15 digits and a power of ten up to 22 are exact doubles,
+	// so one multiplication or division is correctly rounded
+	private static final int MAX_FAST_DIGITS = 15;
+	private static final int MAX_FAST_EXPONENT = 22;
+
+	private final boolean localeNumbers;
+
+	// characters of the trimmed label and of the normalized locale number, reused by every call
+	private char[] chars = new char[32];
+	private char[] normalized = new char[32];
+	private double value;
+
+	public NumberParser(boolean localeNumbers) {
+		this.localeNumbers = localeNumbers;
+	}
+
+	// returns false when the label is not a number, the number is read with GetValue
+	public boolean Parse(String text) {
+		int start = 0;
+		int end = text.length();
+
+		// the same whitespace as String.trim() in Double.parseDouble
+		while (start < end && text.charAt(start) <= ' ') {
+			start++;
+		}
+
+		while (end > start && text.charAt(end - 1) <= ' ') {
+			end--;
+		}
+
+		int length = end - start;
+
+		if (length == 0) {
+			return false;
+		}
+
+		if (chars.length < length + 1) {
+			chars = new char[length * 2];
+			normalized = new char[length * 2];
+		}
+
+		text.getChars(start, end, chars, 0);
+
+		if (parseJava(chars, length)) {
+			return true;
+		}
+
+		return localeNumbers && parseLocale(length);
+	}
+
+	// UTF-8 bytes of a label, the same result as Parse of the decoded label
+	public boolean Parse(ByteBuffer bytes, int offset, int length) {
+		int start = offset;
+		int end = offset + length;
+
+		// bytes of multi-byte characters are negative, they are never trimmed
+		while (start < end && bytes.get(start) >= 0 && bytes.get(start) <= ' ') {
+			start++;
+		}
+
+		while (end > start && bytes.get(end - 1) >= 0 && bytes.get(end - 1) <= ' ') {
+			end--;
+		}
+
+		length = end - start;
+
+		if (length == 0) {
+			return false;
+		}
+
+		if (chars.length < length + 1) {
+			chars = new char[length * 2];
+			normalized = new char[length * 2];
+		}
+
+		for (int i = 0; i < length; i++) {
+			byte b = bytes.get(start + i);
+
+			// numbers are ASCII, only locale separators like the no-break space need decoding
+			if (b < 0) {
+				return localeNumbers && Parse(decode(bytes, start, length));
+			}
+
+			chars[i] = (char) b;
+		}
+
+		if (parseJava(chars, length)) {
+			return true;
+		}
+
+		return localeNumbers && parseLocale(length);
+	}
+
+	public double GetValue() {
+		return value;
+	}
+
+	// decimal and special numbers of the Java grammar, hexadecimal ones are left to Double.parseDouble
+	private boolean parseJava(char[] text, int length) {
+		int i = 0;
+		boolean negative = false;
+		char c = text[i];
+
+		if (c == '+' || c == '-') {
+			negative = c == '-';
+
+			if (++i == length) {
+				return false;
+			}
+
+			c = text[i];
+		}
+
+		if (c == 'N') {
+			if (matches(text, i, length, "NaN")) {
+				value = Double.NaN;
+				return true;
+			}
+
+			return false;
+		}
+
+		if (c == 'I') {
+			if (matches(text, i, length, "Infinity")) {
+				value = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+				return true;
+			}
+
+			return false;
+		}
+
+		if (c == '0' && i + 1 < length && (text[i + 1] == 'x' || text[i + 1] == 'X')) {
+			return parseFallback(text, length);
+		}
+
+		long mantissa = 0;
+		int significantDigits = 0;
+		int decimalExponent = 0;
+		boolean anyDigit = false;
+
+		while (i < length && isDigit(text[i])) {
+			int digit = text[i++] - '0';
+			anyDigit = true;
+
+			if (significantDigits > 0 || digit != 0) {
+				if (significantDigits < 18) {
+					mantissa = mantissa * 10 + digit;
+				} else {
+					decimalExponent++;
+				}
+
+				significantDigits++;
+			}
+		}
+
+		if (i < length && text[i] == '.') {
+			i++;
+
+			while (i < length && isDigit(text[i])) {
+				int digit = text[i++] - '0';
+				anyDigit = true;
+
+				if (significantDigits > 0 || digit != 0) {
+					if (significantDigits < 18) {
+						mantissa = mantissa * 10 + digit;
+						decimalExponent--;
+					}
+
+					significantDigits++;
+				} else {
+					decimalExponent--;
+				}
+			}
+		}
+
+		if (!anyDigit) {
+			return false;
+		}
+
+		if (i < length && (text[i] == 'e' || text[i] == 'E')) {
+			if (++i == length) {
+				return false;
+			}
+
+			boolean negativeExponent = false;
+
+			if (text[i] == '+' || text[i] == '-') {
+				negativeExponent = text[i] == '-';
+				i++;
+			}
+
+			if (i == length || !isDigit(text[i])) {
+				return false;
+			}
+
+			int exponent = 0;
+
+			while (i < length && isDigit(text[i])) {
+				// very large exponents only have to stay large
+				exponent = Math.min(exponent * 10 + (text[i++] - '0'), 100000);
+			}
+
+			decimalExponent += negativeExponent ? -exponent : exponent;
+		}
+
+		// type suffix of Java literals, it does not change the value
+		if (i < length && (text[i] == 'd' || text[i] == 'D' || text[i] == 'f' || text[i] == 'F')) {
+			i++;
+		}
+
+		if (i != length) {
+			return false;
+		}
+
+		if (mantissa == 0) {
+			value = negative ? -0.0 : 0.0;
+			return true;
+		}
+
+		if (significantDigits > MAX_FAST_DIGITS || Math.abs(decimalExponent) > MAX_FAST_EXPONENT) {
+			return parseFallback(text, length);
+		}
+
+		double number = mantissa;
+
+		if (decimalExponent >= 0) {
+			number *= POWERS_OF_TEN[decimalExponent];
+		} else {
+			number /= POWERS_OF_TEN[-decimalExponent];
+		}
+
+		value = negative ? -number : number;
+		return true;
+	}
+
+	// the last single ',' or '.' is the decimal separator, the integer part may be split into groups of three digits
+	// by spaces, apostrophes or the other of ',' and '.'
+	private boolean parseLocale(int length) {
+		int i = 0;
+		int normalizedLength = 0;
+
+		if (chars[i] == '+' || chars[i] == '-') {
+			normalized[normalizedLength++] = chars[i++];
+		}
+
+		int commas = 0;
+		int dots = 0;
+		int lastComma = -1;
+		int lastDot = -1;
+
+		for (int j = i; j < length; j++) {
+			char c = chars[j];
+
+			if (c == ',') {
+				commas++;
+				lastComma = j;
+			} else if (c == '.') {
+				dots++;
+				lastDot = j;
+			} else if (!isDigit(c) && !isGroupSeparator(c)) {
+				return false;
+			}
+		}
+
+		int decimalAt = -1;
+
+		if (commas > 0 && dots > 0) {
+			decimalAt = Math.max(lastComma, lastDot);
+
+			if ((decimalAt == lastComma ? commas : dots) != 1) {
+				return false;
+			}
+		} else if (commas == 1) {
+			decimalAt = lastComma;
+		} else if (dots == 1) {
+			decimalAt = lastDot;
+		}
+
+		int integerEnd = decimalAt >= 0 ? decimalAt : length;
+		char groupSeparator = 0;
+		int groupLength = 0;
+		boolean grouped = false;
+
+		for (int j = i; j < integerEnd; j++) {
+			char c = chars[j];
+
+			if (isDigit(c)) {
+				normalized[normalizedLength++] = c;
+				groupLength++;
+				continue;
+			}
+
+			if (groupSeparator == 0) {
+				groupSeparator = c;
+			} else if (c != groupSeparator) {
+				return false;
+			}
+
+			// the first group has one to three digits, all others exactly three
+			if (grouped ? groupLength != 3 : (groupLength < 1 || groupLength > 3)) {
+				return false;
+			}
+
+			grouped = true;
+			groupLength = 0;
+		}
+
+		if ((grouped && groupLength != 3) || (!grouped && decimalAt < 0) || groupLength == 0) {
+			return false;
+		}
+
+		if (decimalAt >= 0) {
+			normalized[normalizedLength++] = '.';
+
+			if (decimalAt + 1 == length) {
+				return false;
+			}
+
+			for (int j = decimalAt + 1; j < length; j++) {
+				if (!isDigit(chars[j])) {
+					return false;
+				}
+
+				normalized[normalizedLength++] = chars[j];
+			}
+		}
+
+		return parseJava(normalized, normalizedLength);
+	}
+
+	private boolean parseFallback(char[] text, int length) {
+		try {
+			value = Double.parseDouble(new String(text, 0, length));
+			return true;
+		} catch (NumberFormatException ex) {
+			return false;
+		}
+	}
+
+	private static String decode(ByteBuffer bytes, int offset, int length) {
+		byte[] text = new byte[length];
+
+		for (int i = 0; i < length; i++) {
+			text[i] = bytes.get(offset + i);
+		}
+
+		return new String(text, StandardCharsets.UTF_8);
+	}
+
+	private static boolean matches(char[] text, int start, int length, String word) {
+		if (length - start != word.length()) {
+			return false;
+		}
+
+		for (int i = 0; i < word.length(); i++) {
+			if (text[start + i] != word.charAt(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	// spaces, no-break spaces and apostrophes only separate groups of digits
+	private static boolean isGroupSeparator(char c) {
+		return c == ' ' || c == '\u00A0' || c == '\u202F' || c == '\'';
+	}
+}
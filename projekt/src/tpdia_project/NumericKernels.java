@@ -0,0 +1,87 @@
+package tpdia_project;
+
+import tpdia_project.Models.NumberClassesModel;
+
+// counting kernels over row ranges of primitive columns
+// the loops have no data dependent branches, the JIT compiles the conditions to flag moves and unrolls them
+// whole SIMD vectors are counted by VectorKernels when it is built and enabled, the rest by the scalar loop
+public class NumericKernels {
+	// the same limit as the per-value checks, values below it are integer fractions and zeros
+	static final double ZERO_LIMIT = 2 * Double.MIN_VALUE;
+
+	// VectorKernels is compiled by the Maven build from src-vector, it is used when the program runs with
+	// --add-modules jdk.incubator.vector, -Dvectorkernels=false keeps the scalar loop for comparison
+	private static final VectorKernel VECTOR_KERNEL = loadVectorKernel();
+
+	// counts missing, integer, zero and positive values from fromRow in whole vectors, in this order
+	// returns the first row that was not counted, it is left to the scalar loop
+	public interface VectorKernel {
+		int CountClasses(double[] values, int fromRow, int toRow, int[] counts);
+	}
+
+	public static boolean IsVectorized() {
+		return VECTOR_KERNEL != null;
+	}
+
+	// integer, real, sign and zero counts of the numbers from fromRow to toRow (exclusive)
+	public static NumberClassesModel CountClasses(double[] values, int fromRow, int toRow) {
+		int[] counts = new int[4];
+		int row = VECTOR_KERNEL != null ? VECTOR_KERNEL.CountClasses(values, fromRow, toRow, counts) : fromRow;
+
+		countClasses(values, row, toRow, counts);
+
+		int missing = counts[0];
+		int integers = counts[1];
+		int zeros = counts[2];
+		int positives = counts[3];
+		int numbers = toRow - fromRow - missing;
+
+		NumberClassesModel classes = new NumberClassesModel();
+		classes.MissingNumber = missing;
+		classes.IntNumber = integers;
+		classes.RealNumber = numbers - integers;
+		classes.ZeroValue = zeros;
+		classes.PositiveValue = positives;
+		classes.NegativeValue = numbers - zeros - positives;
+
+		return classes;
+	}
+
+	// scalar loop, adds its counts to the counts of the vector kernel
+	private static void countClasses(double[] values, int fromRow, int toRow, int[] counts) {
+		int missing = 0;
+		int integers = 0;
+		int zeros = 0;
+		int positives = 0;
+
+		// NaN fails every comparison, so it only adds to missing
+		for (int row = fromRow; row < toRow; row++) {
+			double value = values[row];
+			int zero = Math.abs(value) < ZERO_LIMIT ? 1 : 0;
+
+			missing += value != value ? 1 : 0;
+			integers += Math.abs(value - Math.floor(value)) < ZERO_LIMIT ? 1 : 0;
+			zeros += zero;
+			positives += (value > 0 ? 1 : 0) & (zero ^ 1);
+		}
+
+		counts[0] += missing;
+		counts[1] += integers;
+		counts[2] += zeros;
+		counts[3] += positives;
+	}
+
+	// without the incubator module in the boot layer the vector classes cannot be linked
+	private static VectorKernel loadVectorKernel() {
+		if (!Boolean.parseBoolean(System.getProperty("vectorkernels", "true"))
+				|| !ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+			return null;
+		}
+
+		try {
+			return (VectorKernel) Class.forName("tpdia_project.VectorKernels").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package tpdia_project;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.core.BatchPredictor;
+import weka.core.Instance;
+import weka.core.Instances;
+
+// cross-validation with the folds built and predicted concurrently, the results are the same as of
+// Evaluation.crossValidateModel: folds are drawn in the calling thread with the same random numbers as in weka,
+// and predictions of the folds are added to the evaluation in the order of the folds
+public class ParallelCrossValidation {
+
+	public static void CrossValidateModel(Evaluation eval, Classifier classifier, Instances data, int numFolds,
+			Random random) throws Exception {
+		data = new Instances(data);
+		data.randomize(random);
+
+		if (data.classAttribute().isNominal()) {
+			data.stratify(numFolds);
+		}
+
+		Instances[] trainFolds = new Instances[numFolds];
+		Instances[] testFolds = new Instances[numFolds];
+
+		// training folds are shuffled with the random generator, so they are drawn one after another
+		for (int fold = 0; fold < numFolds; fold++) {
+			trainFolds[fold] = data.trainCV(numFolds, fold, random);
+			testFolds[fold] = data.testCV(numFolds, fold);
+		}
+
+		Classifier[] copiedClassifiers = AbstractClassifier.makeCopies(classifier, numFolds);
+
+		List<ForkJoinTask<RecordedPredictions>> foldTasks = new ArrayList<ForkJoinTask<RecordedPredictions>>();
+
+		for (int fold = 0; fold < numFolds; fold++) {
+			final int foldNr = fold;
+			foldTasks.add(ForkJoinTask.adapt(
+					() -> PredictFold(copiedClassifiers[foldNr], trainFolds[foldNr], testFolds[foldNr])));
+		}
+
+		ForkJoinTask.invokeAll(foldTasks);
+
+		for (int fold = 0; fold < numFolds; fold++) {
+			eval.setPriors(trainFolds[fold]);
+			eval.evaluateModel(foldTasks.get(fold).join(), testFolds[fold]);
+		}
+
+		SetNumFolds(eval, numFolds);
+	}
+
+	// the first difference of this cross-validation and of Evaluation.crossValidateModel with the same seed,
+	// null when the statistics of both are the same
+	public static String CompareWithSerial(Classifier classifier, Instances data, int numFolds, long seed)
+			throws Exception {
+		Evaluation parallel = new Evaluation(data);
+		CrossValidateModel(parallel, classifier, data, numFolds, new Random(seed));
+
+		Evaluation serial = new Evaluation(data);
+		serial.crossValidateModel(classifier, data, numFolds, new Random(seed));
+
+		if (GetNumFolds(parallel) != GetNumFolds(serial)) {
+			return "number of folds " + GetNumFolds(parallel) + " instead of " + GetNumFolds(serial);
+		}
+
+		if (!parallel.toSummaryString().equals(serial.toSummaryString())) {
+			return "summary\n" + parallel.toSummaryString() + "instead of\n" + serial.toSummaryString();
+		}
+
+		if (data.classAttribute().isNominal()
+				&& !parallel.toClassDetailsString().equals(serial.toClassDetailsString())) {
+			return "class details\n" + parallel.toClassDetailsString() + "instead of\n"
+					+ serial.toClassDetailsString();
+		}
+
+		if (data.classAttribute().isNominal() && !parallel.toMatrixString().equals(serial.toMatrixString())) {
+			return "confusion matrix\n" + parallel.toMatrixString() + "instead of\n" + serial.toMatrixString();
+		}
+
+		return parallel.equals(serial) ? null : "statistics of the evaluations";
+	}
+
+	// crossValidateModel keeps the number of folds in a protected field of the evaluation it delegates to,
+	// weka has no setter for it, and there is no other cross-validation flag in weka 3.8
+	private static void SetNumFolds(Evaluation eval, int numFolds) throws ReflectiveOperationException {
+		GetNumFoldsField().setInt(GetDelegate(eval), numFolds);
+	}
+
+	static int GetNumFolds(Evaluation eval) throws ReflectiveOperationException {
+		return GetNumFoldsField().getInt(GetDelegate(eval));
+	}
+
+	private static Object GetDelegate(Evaluation eval) throws ReflectiveOperationException {
+		Field delegateField = Evaluation.class.getDeclaredField("m_delegate");
+		delegateField.setAccessible(true);
+		return delegateField.get(eval);
+	}
+
+	private static Field GetNumFoldsField() throws ReflectiveOperationException {
+		Field numFoldsField = weka.classifiers.evaluation.Evaluation.class.getDeclaredField("m_NumFolds");
+		numFoldsField.setAccessible(true);
+		return numFoldsField;
+	}
+
+	// the model of a fold predicts its test instances the same way as Evaluation.evaluateModel
+	private static RecordedPredictions PredictFold(Classifier classifier, Instances train, Instances test)
+			throws Exception {
+		classifier.buildClassifier(train);
+
+		boolean batch = classifier instanceof BatchPredictor
+				&& ((BatchPredictor) classifier).implementsMoreEfficientBatchPrediction();
+
+		if (batch) {
+			Instances classMissing = new Instances(test);
+
+			for (int i = 0; i < classMissing.numInstances(); i++) {
+				classMissing.instance(i).setClassMissing();
+			}
+
+			return new RecordedPredictions(((BatchPredictor) classifier).distributionsForInstances(classMissing),
+					true);
+		}
+
+		double[][] distributions = new double[test.numInstances()][];
+
+		for (int i = 0; i < test.numInstances(); i++) {
+			Instance classMissing = (Instance) test.instance(i).copy();
+			classMissing.setDataset(test);
+			classMissing.setClassMissing();
+
+			distributions[i] = classifier.distributionForInstance(classMissing);
+		}
+
+		return new RecordedPredictions(distributions, false);
+	}
+
+	// answers with the predictions of a fold in the order of its test instances
+	private static class RecordedPredictions extends AbstractClassifier {
+		private static final long serialVersionUID = 1L;
+
+		private final double[][] distributions;
+		private final boolean batch;
+		private int next;
+
+		public RecordedPredictions(double[][] distributions, boolean batch) {
+			this.distributions = distributions;
+			this.batch = batch;
+		}
+
+		@Override
+		public void buildClassifier(Instances data) throws Exception {
+			throw new UnsupportedOperationException("Predictions of a fold are already made");
+		}
+
+		@Override
+		public double[] distributionForInstance(Instance instance) throws Exception {
+			return distributions[next++];
+		}
+
+		@Override
+		public double[][] distributionsForInstances(Instances instances) throws Exception {
+			return distributions;
+		}
+
+		@Override
+		public boolean implementsMoreEfficientBatchPrediction() {
+			return batch;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package tpdia_project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// approximate quantiles of a column (KLL sketch), memory does not depend on the number of values
+// every level keeps values with the weight 2^level, a full level keeps every second value on the next one
+public class QuantileSketch {
+	private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+	private final int k;
+	private final List<DoubleArray> levels = new ArrayList<DoubleArray>();
+	private long count;
+
+	// fixed seed, the same values in the same order give the same sketch
+	private long randomState = 0x9E3779B97F4A7C15L;
+
+	// items of all levels sorted by value, built by the first query after a change
+	private double[] sortedItems;
+	private long[] sortedWeights;
+
+	// the rank error is about relativeError of the number of values
+	public QuantileSketch(double relativeError) {
+		k = Math.max(8, (int) Math.ceil(2.0 / relativeError));
+		levels.add(new DoubleArray());
+	}
+
+	public void Add(double value) {
+		levels.get(0).Add(value);
+		count++;
+		sortedItems = null;
+
+		if (levels.get(0).Size() >= getCapacity(0)) {
+			compress();
+		}
+	}
+
+	// adds the values of another sketch with the same error
+	public void Merge(QuantileSketch other) {
+		while (levels.size() < other.levels.size()) {
+			levels.add(new DoubleArray());
+		}
+
+		for (int level = 0; level < other.levels.size(); level++) {
+			DoubleArray otherLevel = other.levels.get(level);
+			DoubleArray thisLevel = levels.get(level);
+
+			for (int i = 0; i < otherLevel.Size(); i++) {
+				thisLevel.Add(otherLevel.Get(i));
+			}
+		}
+
+		count += other.count;
+		sortedItems = null;
+		compress();
+	}
+
+	public long Count() {
+		return count;
+	}
+
+	// approximate value at a position of the sorted column, NaN values are last
+	public double GetValue(long position) {
+		if (sortedItems == null) {
+			sortItems();
+		}
+
+		// pairs are compacted into one value of the double weight, so the weights add up to count
+		long cumulativeWeight = 0;
+
+		for (int i = 0; i < sortedItems.length; i++) {
+			cumulativeWeight += sortedWeights[i];
+
+			if (cumulativeWeight > position) {
+				return sortedItems[i];
+			}
+		}
+
+		return sortedItems.length > 0 ? sortedItems[sortedItems.length - 1] : Double.NaN;
+	}
+
+	private void sortItems() {
+		int itemsNumber = 0;
+		for (DoubleArray level : levels) {
+			itemsNumber += level.Size();
+		}
+
+		double[] items = new double[itemsNumber];
+		long[] weights = new long[itemsNumber];
+		int item = 0;
+
+		for (int level = 0; level < levels.size(); level++) {
+			DoubleArray values = levels.get(level);
+
+			for (int i = 0; i < values.Size(); i++) {
+				items[item] = values.Get(i);
+				weights[item++] = 1L << level;
+			}
+		}
+
+		Integer[] order = new Integer[itemsNumber];
+		for (int i = 0; i < itemsNumber; i++) {
+			order[i] = i;
+		}
+
+		Arrays.sort(order, (a, b) -> Double.compare(items[a], items[b]));
+
+		sortedItems = new double[itemsNumber];
+		sortedWeights = new long[itemsNumber];
+
+		for (int i = 0; i < itemsNumber; i++) {
+			sortedItems[i] = items[order[i]];
+			sortedWeights[i] = weights[order[i]];
+		}
+	}
+
+	private int getCapacity(int level) {
+		int depth = levels.size() - level - 1;
+		return 2 * Math.max(1, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth) / 2));
+	}
+
+	private long nextRandom() {
+		randomState ^= randomState << 13;
+		randomState ^= randomState >>> 7;
+		randomState ^= randomState << 17;
+		return randomState;
+	}
+
+	private void compress() {
+		for (int level = 0; level < levels.size(); level++) {
+			DoubleArray values = levels.get(level);
+
+			if (values.Size() < getCapacity(level)) {
+				continue;
+			}
+
+			if (level + 1 == levels.size()) {
+				levels.add(new DoubleArray());
+			}
+
+			DoubleArray nextLevel = levels.get(level + 1);
+			values.Sort();
+
+			// an odd value stays on its level, the smallest or the largest one, so the error does not drift
+			int size = values.Size();
+			long random = nextRandom();
+			int pairsStart = (size % 2 == 1 && (random & 2) != 0) ? 1 : 0;
+			int pairsEnd = pairsStart + size - size % 2;
+
+			for (int i = pairsStart + (int) (random & 1); i < pairsEnd; i += 2) {
+				nextLevel.Add(values.Get(i));
+			}
+
+			DoubleArray rest = new DoubleArray();
+			if (size % 2 == 1) {
+				rest.Add(values.Get(pairsStart == 1 ? 0 : size - 1));
+			}
+
+			levels.set(level, rest);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package tpdia_project;
+
+import java.util.Arrays;
+
+// values at sorted positions without sorting the whole column
+// positions are the same as in an array sorted by Arrays.sort: NaN is last and -0.0 is before 0.0
+public class Quantiles {
+	// below this size a range is simply sorted
+	private static final int SORT_THRESHOLD = 16;
+
+	// values at the given sorted positions, the first size elements are reordered
+	public static double[] Select(double[] values, int size, int[] positions) {
+		double[] selected = new double[positions.length];
+
+		// NaN values are moved to the end, they are after all numbers in the sorted order
+		int numbersSize = 0;
+		for (int i = 0; i < size; i++) {
+			if (!Double.isNaN(values[i])) {
+				double value = values[i];
+				values[i] = values[numbersSize];
+				values[numbersSize++] = value;
+			}
+		}
+
+		int[] order = sortedOrder(positions);
+		int lo = 0;
+		boolean zeroSelected = false;
+
+		for (int i : order) {
+			int position = positions[i];
+
+			if (position >= numbersSize) {
+				selected[i] = Double.NaN;
+				continue;
+			}
+
+			// earlier positions are already in place, so the search continues on the right of them
+			selected[i] = select(values, lo, numbersSize - 1, position);
+			lo = position;
+
+			zeroSelected |= selected[i] == 0.0;
+		}
+
+		if (zeroSelected) {
+			fixZeroSigns(values, numbersSize, positions, selected);
+		}
+
+		return selected;
+	}
+
+	private static int[] sortedOrder(int[] positions) {
+		Integer[] order = new Integer[positions.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+
+		Arrays.sort(order, (a, b) -> Integer.compare(positions[a], positions[b]));
+
+		int[] result = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result[i] = order[i];
+		}
+
+		return result;
+	}
+
+	// quickselect with three way partitioning, columns often have many equal values
+	private static double select(double[] values, int lo, int hi, int position) {
+		// a bad pivot sequence ends in a sort, so the time is never quadratic
+		int remainingRounds = 2 * (32 - Integer.numberOfLeadingZeros(hi - lo + 1)) + 8;
+
+		while (hi - lo >= SORT_THRESHOLD && remainingRounds-- > 0) {
+			double pivot = medianOfThree(values[lo], values[lo + (hi - lo) / 2], values[hi]);
+
+			// values[lo..lt) < pivot, values[lt..i) == pivot, values(gt..hi] > pivot
+			int lt = lo;
+			int gt = hi;
+			int i = lo;
+
+			while (i <= gt) {
+				double value = values[i];
+
+				if (value < pivot) {
+					values[i++] = values[lt];
+					values[lt++] = value;
+				} else if (value > pivot) {
+					values[i] = values[gt];
+					values[gt--] = value;
+				} else {
+					i++;
+				}
+			}
+
+			if (position < lt) {
+				hi = lt - 1;
+			} else if (position > gt) {
+				lo = gt + 1;
+			} else {
+				return values[position];
+			}
+		}
+
+		Arrays.sort(values, lo, hi + 1);
+		return values[position];
+	}
+
+	private static double medianOfThree(double a, double b, double c) {
+		if (a < b) {
+			return b < c ? b : (a < c ? c : a);
+		}
+
+		return a < c ? a : (b < c ? c : b);
+	}
+
+	// partitioning treats -0.0 and 0.0 as equal, the sign follows from the number of negative zeros
+	private static void fixZeroSigns(double[] values, int numbersSize, int[] positions, double[] selected) {
+		int negativeNumber = 0;
+		int negativeZeroNumber = 0;
+
+		for (int i = 0; i < numbersSize; i++) {
+			if (values[i] < 0) {
+				negativeNumber++;
+			} else if (values[i] == 0.0 && Double.doubleToRawLongBits(values[i]) != 0L) {
+				negativeZeroNumber++;
+			}
+		}
+
+		for (int i = 0; i < positions.length; i++) {
+			if (selected[i] == 0.0) {
+				selected[i] = positions[i] < negativeNumber + negativeZeroNumber ? -0.0 : 0.0;
+			}
+		}
+	}
+}
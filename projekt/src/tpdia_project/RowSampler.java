@@ -0,0 +1,87 @@
+package tpdia_project;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import tpdia_project.Models.ExtractionSettingsModel;
+
+// chooses rows of a streamed file, a fixed number of rows by reservoir sampling or every row with a fixed probability
+// the caller keeps the chosen rows in slots, a slot of the reservoir can be taken over by a later row
+public class RowSampler {
+	private final int sampleRows;
+	private final double sampleFraction;
+
+	// fixed seed, the same file gives the same sample
+	private final Random random;
+
+	private long rowsNumber;
+	private long[] slotRows = new long[16];
+	private int size;
+
+	public RowSampler(ExtractionSettingsModel settings) {
+		sampleRows = settings.SampleRows;
+		sampleFraction = settings.SampleFraction;
+		random = new Random(settings.SampleSeed);
+	}
+
+	public static boolean IsEnabled(ExtractionSettingsModel settings) {
+		return settings.SampleRows > 0 || settings.SampleFraction > 0;
+	}
+
+	// slot for the next row of the file, -1 when the row is not in the sample
+	public int Offer() {
+		long row = rowsNumber++;
+
+		if (sampleRows > 0) {
+			if (size < sampleRows) {
+				return add(row);
+			}
+
+			// every row seen so far stays in the reservoir with the same probability
+			long slot = (long) (random.nextDouble() * (row + 1));
+
+			if (slot >= sampleRows) {
+				return -1;
+			}
+
+			slotRows[(int) slot] = row;
+			return (int) slot;
+		}
+
+		return random.nextDouble() < sampleFraction ? add(row) : -1;
+	}
+
+	public long GetRowsNumber() {
+		return rowsNumber;
+	}
+
+	public int GetSize() {
+		return size;
+	}
+
+	// slots in the order of their rows in the file, so the sample is profiled in file order
+	public int[] GetSlotsInRowOrder() {
+		Integer[] order = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+
+		Arrays.sort(order, (a, b) -> Long.compare(slotRows[a], slotRows[b]));
+
+		int[] result = new int[size];
+		for (int i = 0; i < size; i++) {
+			result[i] = order[i];
+		}
+
+		return result;
+	}
+
+	private int add(long row) {
+		if (size == slotRows.length) {
+			slotRows = Arrays.copyOf(slotRows, size << 1);
+		}
+
+		slotRows[size] = row;
+		return size++;
+	}
+}
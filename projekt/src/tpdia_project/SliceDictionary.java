@@ -0,0 +1,91 @@
+package tpdia_project;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// label indexes by the bytes of a cell in a mapped file, so a label is decoded to a string only once
+// keys are offsets and lengths of their first appearance in the same buffer, with open addressing
+public class SliceDictionary {
+	private int[] offsets = new int[16];
+	private int[] lengths = new int[16];
+	private int[] hashes = new int[16];
+	private int[] values = new int[16];
+	private int size;
+
+	public SliceDictionary() {
+		Arrays.fill(values, -1);
+	}
+
+	// returns -1 when the bytes are not in the dictionary
+	public int Get(ByteBuffer bytes, int offset, int length, int hash) {
+		int mask = values.length - 1;
+
+		for (int slot = mix(hash) & mask; values[slot] >= 0; slot = (slot + 1) & mask) {
+			if (hashes[slot] == hash && lengths[slot] == length && equalBytes(bytes, offsets[slot], offset, length)) {
+				return values[slot];
+			}
+		}
+
+		return -1;
+	}
+
+	// the bytes must not be in the dictionary yet
+	public void Put(int offset, int length, int hash, int value) {
+		if ((size + 1) * 2 > values.length) {
+			grow();
+		}
+
+		insert(offset, length, hash, value);
+		size++;
+	}
+
+	private void insert(int offset, int length, int hash, int value) {
+		int mask = values.length - 1;
+		int slot = mix(hash) & mask;
+
+		while (values[slot] >= 0) {
+			slot = (slot + 1) & mask;
+		}
+
+		offsets[slot] = offset;
+		lengths[slot] = length;
+		hashes[slot] = hash;
+		values[slot] = value;
+	}
+
+	private void grow() {
+		int[] oldOffsets = offsets;
+		int[] oldLengths = lengths;
+		int[] oldHashes = hashes;
+		int[] oldValues = values;
+
+		int capacity = oldValues.length * 2;
+		offsets = new int[capacity];
+		lengths = new int[capacity];
+		hashes = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, -1);
+
+		for (int slot = 0; slot < oldValues.length; slot++) {
+			if (oldValues[slot] >= 0) {
+				insert(oldOffsets[slot], oldLengths[slot], oldHashes[slot], oldValues[slot]);
+			}
+		}
+	}
+
+	private static boolean equalBytes(ByteBuffer bytes, int first, int second, int length) {
+		for (int i = 0; i < length; i++) {
+			if (bytes.get(first + i) != bytes.get(second + i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// similar labels have similar hashes, the bits are spread before they select a slot
+	private static int mix(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,332 @@
+package tpdia_project;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// reads a CSV file row by row, without building weka Instances
+// tokens follow the rules of weka's CSVLoader, so the same files give the same cells
+public class StreamingCSVReader implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final int TOKEN_EOF = -1;
+	private static final int TOKEN_EOL = -2;
+	private static final int TOKEN_WORD = -3;
+	private static final int TOKEN_SEPARATOR = -4;
+
+	private static final int NEED_CHAR = Integer.MAX_VALUE;
+	private static final int SKIP_LF = Integer.MAX_VALUE - 1;
+
+	private final FileChannel channel;
+	private final CharsetDecoder decoder;
+	private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+	private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+	private boolean endOfInput;
+	private boolean decoderFlushed;
+
+	private final char separator;
+	private final StringBuilder tokenText = new StringBuilder();
+	private int peekChar = NEED_CHAR;
+	private int tokenType;
+	private String tokenValue;
+
+	private final List<String> columnNames = new ArrayList<String>();
+	private int rowsNumber;
+
+	public StreamingCSVReader(String fileName, String fieldSeparator) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		separator = fieldSeparator.charAt(0);
+		chars.flip();
+
+		readHeader();
+	}
+
+	public List<String> GetColumnNames() {
+		return columnNames;
+	}
+
+	public int GetRowsNumber() {
+		return rowsNumber;
+	}
+
+	// fills cells with the next row, missing values are null
+	// returns false at the end of the file
+	public boolean ReadRow(List<String> cells) throws IOException {
+		nextToken();
+		while (tokenType == TOKEN_EOL) {
+			nextToken();
+		}
+
+		if (tokenType == TOKEN_EOF) {
+			return false;
+		}
+
+		cells.clear();
+		boolean first = true;
+
+		while (tokenType != TOKEN_EOL && tokenType != TOKEN_EOF) {
+			if (!first) {
+				nextToken();
+			}
+
+			boolean wasSeparator;
+
+			if (tokenType == TOKEN_SEPARATOR || tokenType == TOKEN_EOL) {
+				cells.add(null);
+				wasSeparator = true;
+			} else {
+				wasSeparator = false;
+
+				if (tokenType == TOKEN_EOF) {
+					throw new IOException("premature end of file, line: " + (rowsNumber + 2));
+				}
+
+				if (tokenValue.equals("?") || tokenValue.trim().length() == 0) {
+					cells.add(null);
+				} else {
+					cells.add(tokenValue);
+				}
+			}
+
+			if (!wasSeparator) {
+				nextToken();
+			}
+
+			first = false;
+		}
+
+		if (cells.size() != columnNames.size()) {
+			throw new IOException("wrong number of values. Read " + cells.size() + ", expected " + columnNames.size()
+					+ ", line: " + (rowsNumber + 2));
+		}
+
+		rowsNumber++;
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	// names are read from the first line, empty names are skipped
+	private void readHeader() throws IOException {
+		nextToken();
+
+		if (tokenType == TOKEN_EOF) {
+			throw new IOException("No data in the file!");
+		}
+
+		if (tokenType == TOKEN_EOL) {
+			throw new IOException("premature end of file");
+		}
+
+		Set<String> uniqueNames = new HashSet<String>();
+		boolean first = true;
+
+		while (tokenType != TOKEN_EOL && tokenType != TOKEN_EOF) {
+			if (!first) {
+				nextToken();
+			}
+
+			boolean wasSeparator = tokenType == TOKEN_SEPARATOR || tokenType == TOKEN_EOL;
+
+			if (tokenType == TOKEN_WORD) {
+				if (!uniqueNames.add(tokenValue)) {
+					throw new IOException("Attribute names are not unique! Causes: " + tokenValue);
+				}
+
+				columnNames.add(tokenValue);
+			}
+
+			if (!wasSeparator) {
+				nextToken();
+			}
+
+			first = false;
+		}
+	}
+
+	// same syntax as the StreamTokenizer of CSVLoader: control characters are whitespace,
+	// ' and " enclose values, the separator is a token and line ends are significant
+	private void nextToken() throws IOException {
+		int c = peekChar;
+
+		if (c == SKIP_LF) {
+			c = read();
+			if (c < 0) {
+				tokenType = TOKEN_EOF;
+				return;
+			}
+
+			if (c == '\n') {
+				c = NEED_CHAR;
+			}
+		}
+
+		if (c == NEED_CHAR) {
+			c = read();
+			if (c < 0) {
+				tokenType = TOKEN_EOF;
+				return;
+			}
+		}
+
+		peekChar = NEED_CHAR;
+
+		while (c < ' ' && c != separator) {
+			if (c == '\r') {
+				peekChar = SKIP_LF;
+				tokenType = TOKEN_EOL;
+				return;
+			}
+
+			if (c == '\n') {
+				tokenType = TOKEN_EOL;
+				return;
+			}
+
+			c = read();
+			if (c < 0) {
+				tokenType = TOKEN_EOF;
+				return;
+			}
+		}
+
+		if (c == separator) {
+			tokenType = TOKEN_SEPARATOR;
+			return;
+		}
+
+		tokenText.setLength(0);
+
+		if (c == '"' || c == '\'') {
+			readQuoted(c);
+		} else {
+			do {
+				tokenText.append((char) c);
+				c = read();
+			} while (c >= ' ' && c != separator && c != '"' && c != '\'');
+
+			peekChar = c < 0 ? NEED_CHAR : c;
+		}
+
+		tokenType = TOKEN_WORD;
+		tokenValue = tokenText.toString();
+	}
+
+	// quoted value ends with the same quote or with the line, backslash escapes are decoded
+	private void readQuoted(int quote) throws IOException {
+		int d = read();
+
+		while (d >= 0 && d != quote && d != '\n' && d != '\r') {
+			int c;
+
+			if (d == '\\') {
+				c = read();
+				int first = c;
+
+				if (c >= '0' && c <= '7') {
+					c = c - '0';
+					int c2 = read();
+
+					if ('0' <= c2 && c2 <= '7') {
+						c = (c << 3) + (c2 - '0');
+						c2 = read();
+
+						if ('0' <= c2 && c2 <= '7' && first <= '3') {
+							c = (c << 3) + (c2 - '0');
+							d = read();
+						} else {
+							d = c2;
+						}
+					} else {
+						d = c2;
+					}
+				} else {
+					switch (c) {
+					case 'a':
+						c = 0x7;
+						break;
+					case 'b':
+						c = '\b';
+						break;
+					case 'f':
+						c = 0xC;
+						break;
+					case 'n':
+						c = '\n';
+						break;
+					case 'r':
+						c = '\r';
+						break;
+					case 't':
+						c = '\t';
+						break;
+					case 'v':
+						c = 0xB;
+						break;
+					}
+
+					d = read();
+				}
+			} else {
+				c = d;
+				d = read();
+			}
+
+			tokenText.append((char) c);
+		}
+
+		peekChar = (d == quote || d < 0) ? NEED_CHAR : d;
+	}
+
+	private int read() throws IOException {
+		if (!chars.hasRemaining() && !fill()) {
+			return -1;
+		}
+
+		return chars.get();
+	}
+
+	// decodes the next block of bytes
+	private boolean fill() throws IOException {
+		if (decoderFlushed) {
+			return false;
+		}
+
+		chars.clear();
+
+		while (chars.position() == 0) {
+			if (!endOfInput && channel.read(bytes) < 0) {
+				endOfInput = true;
+			}
+
+			bytes.flip();
+			decoder.decode(bytes, chars, endOfInput);
+			bytes.compact();
+
+			if (endOfInput) {
+				decoder.flush(chars);
+				decoderFlushed = true;
+				break;
+			}
+		}
+
+		chars.flip();
+		return chars.hasRemaining();
+	}
+}
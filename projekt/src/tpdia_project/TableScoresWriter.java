@@ -0,0 +1,139 @@
+package tpdia_project;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import tpdia_project.Models.ColumnScoreModel;
+import tpdia_project.Models.TableScoresModel;
+
+// writes scored columns of tables as text for the console, as json or as csv with the separator of features.csv
+public class TableScoresWriter {
+	public static final List<String> FORMATS = Arrays.asList("text", "json", "csv");
+
+	private static final String CSV_SEPARATOR = ";";
+
+	private final String format;
+
+	public TableScoresWriter(String format) {
+		if (!FORMATS.contains(format)) {
+			throw new IllegalArgumentException("Unknown output format: " + format + ", expected one of " + FORMATS);
+		}
+
+		this.format = format;
+	}
+
+	public boolean IsText() {
+		return format.equals("text");
+	}
+
+	public void Write(List<TableScoresModel> tables, PrintStream out) {
+		if (format.equals("json")) {
+			StringBuilder json = new StringBuilder("{\"tables\":[");
+
+			for (int i = 0; i < tables.size(); i++) {
+				if (i > 0) {
+					json.append(',');
+				}
+
+				AppendJson(json, tables.get(i));
+			}
+
+			out.println(json.append("]}"));
+			return;
+		}
+
+		if (format.equals("csv")) {
+			out.println("file" + CSV_SEPARATOR + "column" + CSV_SEPARATOR + "columnNr" + CSV_SEPARATOR + "probability"
+					+ CSV_SEPARATOR + "measure");
+		}
+
+		for (TableScoresModel table : tables) {
+			if (format.equals("csv")) {
+				writeCSV(table, out);
+			} else {
+				writeText(table, out);
+			}
+		}
+	}
+
+	public static void AppendJson(StringBuilder json, TableScoresModel table) {
+		json.append("{\"file\":");
+		AppendJsonString(json, table.FileName);
+
+		if (table.Columns == null) {
+			json.append(",\"error\":\"The file could not be read\"}");
+			return;
+		}
+
+		json.append(",\"rows\":").append(table.RowsNumber).append(",\"columns\":[");
+
+		for (int i = 0; i < table.Columns.length; i++) {
+			ColumnScoreModel column = table.Columns[i];
+
+			if (i > 0) {
+				json.append(',');
+			}
+
+			json.append("{\"name\":");
+			AppendJsonString(json, column.ColumnName);
+			json.append(",\"probability\":").append(column.MeasureProbability);
+			json.append(",\"measure\":").append(column.IsMeasure).append('}');
+		}
+
+		json.append("]}");
+	}
+
+	public static void AppendJsonString(StringBuilder json, String text) {
+		json.append('"');
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < ' ') {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+
+		json.append('"');
+	}
+
+	private static void writeText(TableScoresModel table, PrintStream out) {
+		if (table.Columns == null) {
+			out.println("There was a problem reading the file: " + table.FileName + ". Skipping..");
+			return;
+		}
+
+		out.println("----- File: " + table.FileName + " -----");
+
+		for (ColumnScoreModel column : table.Columns) {
+			out.println((column.IsMeasure ? "[measure] " : "          ") + column.ColumnName + ": "
+					+ column.MeasureProbability);
+		}
+	}
+
+	// files that could not be read have no rows
+	private static void writeCSV(TableScoresModel table, PrintStream out) {
+		if (table.Columns == null) {
+			return;
+		}
+
+		for (ColumnScoreModel column : table.Columns) {
+			out.println(quoteCSV(table.FileName) + CSV_SEPARATOR + quoteCSV(column.ColumnName) + CSV_SEPARATOR
+					+ column.ColumnNr + CSV_SEPARATOR + column.MeasureProbability + CSV_SEPARATOR
+					+ (column.IsMeasure ? 1 : 0));
+		}
+	}
+
+	private static String quoteCSV(String text) {
+		if (!text.contains(CSV_SEPARATOR) && !text.contains("\"") && !text.contains("\n") && !text.contains("\r")) {
+			return text;
+		}
+
+		return "\"" + text.replace("\"", "\"\"") + "\"";
+	}
+}
@@ -0,0 +1,149 @@
+package tpdia_project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+
+// removes units from nominal columns, e.g. "PLN120" or "120kg" becomes "120"
+// a column is rewritten only when all its values have the same unit before or after the number
+// labels are checked and renamed once per dictionary value, not once per row
+public class UnitNormalizer {
+
+	// returns true when the column was rewritten
+	public boolean Normalize(Instances dataset, int columnNr) {
+		Attribute attribute = dataset.attribute(columnNr);
+
+		if (!attribute.isNominal()) {
+			return false;
+		}
+
+		double[] column = dataset.attributeToDoubleArray(columnNr);
+
+		// a missing value is read as "?", which has no unit
+		for (int row = 0; row < column.length; row++) {
+			if (Double.isNaN(column[row])) {
+				return false;
+			}
+		}
+
+		if (column.length == 0) {
+			return false;
+		}
+
+		List<String> labels = new ArrayList<String>(attribute.numValues());
+
+		for (int label = 0; label < attribute.numValues(); label++) {
+			labels.add(attribute.value(label));
+		}
+
+		List<String> numbers = StripUnit(labels);
+
+		if (numbers == null) {
+			return false;
+		}
+
+		// label indices do not change, so the rows get back their old values
+		Attribute normalizedAttribute = new Attribute(attribute.name(), numbers);
+		dataset.replaceAttributeAt(normalizedAttribute, columnNr);
+
+		for (int row = 0; row < column.length; row++) {
+			dataset.instance(row).setValue(columnNr, column[row]);
+		}
+
+		return true;
+	}
+
+	// numbers of the labels without their common unit, null when the labels do not share a unit
+	public List<String> StripUnit(List<String> labels) {
+		List<String> numbers = stripPrefix(labels);
+
+		if (numbers == null) {
+			numbers = stripSuffix(labels);
+		}
+
+		return numbers;
+	}
+
+	// labels like "PLN120", non digits followed by digits
+	private static List<String> stripPrefix(List<String> labels) {
+		List<String> numbers = new ArrayList<String>(labels.size());
+		String unit = null;
+
+		for (String label : labels) {
+			int numberStart = 0;
+
+			while (numberStart < label.length() && !isDigit(label.charAt(numberStart))) {
+				numberStart++;
+			}
+
+			if (numberStart == 0 || numberStart == label.length() || !isDigits(label, numberStart, label.length())) {
+				return null;
+			}
+
+			if (unit == null) {
+				unit = label.substring(0, numberStart);
+			} else if (!label.startsWith(unit) || unit.length() != numberStart) {
+				return null;
+			}
+
+			numbers.add(label.substring(numberStart));
+		}
+
+		return numbers;
+	}
+
+	// labels like "120kg", digits followed by non digits
+	private static List<String> stripSuffix(List<String> labels) {
+		List<String> numbers = new ArrayList<String>(labels.size());
+		String unit = null;
+
+		for (String label : labels) {
+			int numberEnd = 0;
+
+			while (numberEnd < label.length() && isDigit(label.charAt(numberEnd))) {
+				numberEnd++;
+			}
+
+			if (numberEnd == 0 || numberEnd == label.length() || hasDigit(label, numberEnd, label.length())) {
+				return null;
+			}
+
+			if (unit == null) {
+				unit = label.substring(numberEnd);
+			} else if (!label.endsWith(unit) || label.length() - numberEnd != unit.length()) {
+				return null;
+			}
+
+			numbers.add(label.substring(0, numberEnd));
+		}
+
+		return numbers;
+	}
+
+	// same digits as \d of java regular expressions
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isDigits(String text, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (!isDigit(text.charAt(i))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean hasDigit(String text, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (isDigit(text.charAt(i))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}